@@ -3,6 +3,7 @@ package ninja.trek.rpg;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.client.rendering.v1.EntityRendererRegistry;
 import net.minecraft.client.KeyMapping;
@@ -56,7 +57,7 @@ public class McrpgClient implements ClientModInitializer {
 			}
 			while (openJournalKey.consumeClick()) {
 				if (client.screen == null) {
-					ClientPlayNetworking.send(new RequestJournalPayload());
+					QuestJournalScreen.requestPage(RequestJournalPayload.Tab.ACTIVE, 0);
 				}
 			}
 		});
@@ -116,7 +117,9 @@ public class McrpgClient implements ClientModInitializer {
 		// Quest state sync
 		ClientPlayNetworking.registerGlobalReceiver(SyncQuestStatePayload.TYPE, (payload, context) -> {
 			context.client().execute(() -> {
-				ClientRpgState.getInstance().updateQuestStates(payload.entries());
+				ClientRpgState state = ClientRpgState.getInstance();
+				state.updateQuestStates(payload);
+				ClientPlayNetworking.send(new AckQuestStatePayload(state.getQuestRevision()));
 			});
 		});
 
@@ -150,13 +153,28 @@ public class McrpgClient implements ClientModInitializer {
 			});
 		});
 
-		// Journal sync
+		// Journal metadata, cached until the server's registry changes
+		ClientPlayNetworking.registerGlobalReceiver(JournalMetadataPayload.TYPE, (payload, context) -> {
+			context.client().execute(() -> {
+				ClientRpgState.getInstance().updateJournalMetadata(payload.version(), payload.quests());
+			});
+		});
+
+		// Journal page
 		ClientPlayNetworking.registerGlobalReceiver(SyncJournalPayload.TYPE, (payload, context) -> {
 			context.client().execute(() -> {
-				ClientRpgState.getInstance().updateJournal(payload.entries());
+				ClientRpgState.getInstance().updateJournalPage(payload);
 				Minecraft client = context.client();
-				client.setScreen(new QuestJournalScreen());
+				if (client.screen instanceof QuestJournalScreen journalScreen) {
+					journalScreen.onPageReceived();
+				} else {
+					client.setScreen(new QuestJournalScreen());
+				}
 			});
 		});
+
+		ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+			client.execute(() -> ClientRpgState.getInstance().clearServerCaches());
+		});
 	}
 }
@@ -1,21 +1,25 @@
 package ninja.trek.rpg.client.gui;
 
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.gui.GuiGraphics;
 import net.minecraft.client.gui.components.Button;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.input.MouseButtonEvent;
 import net.minecraft.network.chat.Component;
 import ninja.trek.rpg.client.state.ClientRpgState;
+import ninja.trek.rpg.network.payloads.JournalMetadataPayload;
+import ninja.trek.rpg.network.payloads.RequestJournalPayload;
 import ninja.trek.rpg.network.payloads.SyncJournalPayload;
+import ninja.trek.rpg.state.QuestState;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class QuestJournalScreen extends Screen {
 
-    private enum Tab { ACTIVE, AVAILABLE, COMPLETED }
-
-    private Tab currentTab = Tab.ACTIVE;
+    private RequestJournalPayload.Tab currentTab = RequestJournalPayload.Tab.ACTIVE;
+    private int currentPage = 0;
+    private int pageCount = 1;
     private int selectedIndex = -1;
     private int scrollOffset = 0;
     private List<SyncJournalPayload.JournalEntry> filteredEntries = new ArrayList<>();
@@ -24,6 +28,11 @@ public class QuestJournalScreen extends Screen {
         super(Component.literal("Quest Journal"));
     }
 
+    public static void requestPage(RequestJournalPayload.Tab tab, int page) {
+        long metadataVersion = ClientRpgState.getInstance().getJournalMetadataVersion();
+        ClientPlayNetworking.send(new RequestJournalPayload(tab, page, metadataVersion));
+    }
+
     @Override
     protected void init() {
         super.init();
@@ -32,38 +41,48 @@ public class QuestJournalScreen extends Screen {
         int tabY = 15;
         int tabStartX = (width - tabWidth * 3) / 2;
 
-        addRenderableWidget(Button.builder(Component.literal("Active"), b -> switchTab(Tab.ACTIVE))
+        addRenderableWidget(Button.builder(Component.literal("Active"), b -> switchTab(RequestJournalPayload.Tab.ACTIVE))
             .bounds(tabStartX, tabY, tabWidth, 20).build());
-        addRenderableWidget(Button.builder(Component.literal("Available"), b -> switchTab(Tab.AVAILABLE))
+        addRenderableWidget(Button.builder(Component.literal("Available"), b -> switchTab(RequestJournalPayload.Tab.AVAILABLE))
             .bounds(tabStartX + tabWidth, tabY, tabWidth, 20).build());
-        addRenderableWidget(Button.builder(Component.literal("Completed"), b -> switchTab(Tab.COMPLETED))
+        addRenderableWidget(Button.builder(Component.literal("Completed"), b -> switchTab(RequestJournalPayload.Tab.COMPLETED))
             .bounds(tabStartX + tabWidth * 2, tabY, tabWidth, 20).build());
 
-        filterEntries();
+        addRenderableWidget(Button.builder(Component.literal("<"), b -> changePage(-1))
+            .bounds(width - 70, tabY, 20, 20).build());
+        addRenderableWidget(Button.builder(Component.literal(">"), b -> changePage(1))
+            .bounds(width - 45, tabY, 20, 20).build());
+
+        onPageReceived();
     }
 
-    private void switchTab(Tab tab) {
-        currentTab = tab;
-        selectedIndex = -1;
-        scrollOffset = 0;
-        filterEntries();
+    private void switchTab(RequestJournalPayload.Tab tab) {
+        requestPage(tab, 0);
     }
 
-    private void filterEntries() {
-        List<SyncJournalPayload.JournalEntry> all = ClientRpgState.getInstance().getJournalEntries();
-        filteredEntries = new ArrayList<>();
+    private void changePage(int delta) {
+        int page = currentPage + delta;
+        if (page >= 0 && page < pageCount) {
+            requestPage(currentTab, page);
+        }
+    }
 
-        for (SyncJournalPayload.JournalEntry entry : all) {
-            switch (currentTab) {
-                case ACTIVE -> {
-                    if ("ACTIVE".equals(entry.state())) filteredEntries.add(entry);
-                }
-                case AVAILABLE -> {
-                    if ("AVAILABLE".equals(entry.state())) filteredEntries.add(entry);
-                }
-                case COMPLETED -> {
-                    if ("COMPLETED".equals(entry.state()) || "FAILED".equals(entry.state())) filteredEntries.add(entry);
-                }
+    // The server filters and pages per tab; the screen just shows the last page received
+    public void onPageReceived() {
+        SyncJournalPayload page = ClientRpgState.getInstance().getJournalPage();
+        if (page == null) return;
+
+        if (page.tab() != currentTab || page.page() != currentPage) {
+            selectedIndex = -1;
+            scrollOffset = 0;
+        }
+        currentTab = page.tab();
+        currentPage = page.page();
+        pageCount = page.pageCount();
+        filteredEntries = new ArrayList<>();
+        for (SyncJournalPayload.JournalEntry entry : page.entries()) {
+            if (ClientRpgState.getInstance().getJournalMetadata(entry.questIndex()) != null) {
+                filteredEntries.add(entry);
             }
         }
     }
@@ -94,6 +113,7 @@ public class QuestJournalScreen extends Screen {
             if (y + entryHeight > panelY + listMaxH) break;
 
             SyncJournalPayload.JournalEntry entry = filteredEntries.get(i);
+            JournalMetadataPayload.QuestMetadata quest = ClientRpgState.getInstance().getJournalMetadata(entry.questIndex());
 
             // Selection highlight
             if (i == selectedIndex) {
@@ -101,7 +121,7 @@ public class QuestJournalScreen extends Screen {
             }
 
             // Quest summary (truncated)
-            String displayText = "[L" + entry.level() + "] " + entry.summary();
+            String displayText = "[L" + quest.level() + "] " + quest.summary();
             if (font.width(displayText) > dividerX - panelX - 20) {
                 while (font.width(displayText + "...") > dividerX - panelX - 20 && displayText.length() > 5) {
                     displayText = displayText.substring(0, displayText.length() - 1);
@@ -111,42 +131,43 @@ public class QuestJournalScreen extends Screen {
             graphics.drawString(font, Component.literal(displayText), panelX + 5, y + 3, 0xFFCCCCCC);
 
             // Faction
-            graphics.drawString(font, Component.literal(entry.factionId()), panelX + 5, y + 15, 0xFF888888);
+            graphics.drawString(font, Component.literal(quest.factionId()), panelX + 5, y + 15, 0xFF888888);
         }
 
         // Right panel - quest details
         if (selectedIndex >= 0 && selectedIndex < filteredEntries.size()) {
             SyncJournalPayload.JournalEntry entry = filteredEntries.get(selectedIndex);
+            JournalMetadataPayload.QuestMetadata quest = ClientRpgState.getInstance().getJournalMetadata(entry.questIndex());
             int detailX = dividerX + 10;
             int detailY = panelY + 10;
             int detailW = panelX + panelW - dividerX - 20;
 
-            graphics.drawString(font, Component.literal(entry.questFullId()), detailX, detailY, 0xFFFFAA00);
+            graphics.drawString(font, Component.literal(quest.questFullId()), detailX, detailY, 0xFFFFAA00);
             detailY += 15;
 
-            graphics.drawString(font, Component.literal("Level: " + entry.level() + " | Faction: " + entry.factionId()),
+            graphics.drawString(font, Component.literal("Level: " + quest.level() + " | Faction: " + quest.factionId()),
                 detailX, detailY, 0xFF888888);
             detailY += 15;
 
-            graphics.drawString(font, Component.literal("Location: " + entry.location()), detailX, detailY, 0xFF888888);
+            graphics.drawString(font, Component.literal("Location: " + quest.location()), detailX, detailY, 0xFF888888);
             detailY += 15;
 
-            graphics.drawString(font, Component.literal("Status: " + entry.state()), detailX, detailY,
-                "ACTIVE".equals(entry.state()) ? 0xFF55FF55 :
-                "AVAILABLE".equals(entry.state()) ? 0xFFFFFF55 :
-                "COMPLETED".equals(entry.state()) ? 0xFF5555FF :
+            graphics.drawString(font, Component.literal("Status: " + entry.state().name()), detailX, detailY,
+                entry.state() == QuestState.ACTIVE ? 0xFF55FF55 :
+                entry.state() == QuestState.AVAILABLE ? 0xFFFFFF55 :
+                entry.state() == QuestState.COMPLETED ? 0xFF5555FF :
                 0xFFFF5555);
             detailY += 20;
 
             // Summary with word wrap
-            List<String> lines = wrapText(entry.summary(), detailW);
+            List<String> lines = wrapText(quest.summary(), detailW);
             for (String line : lines) {
                 graphics.drawString(font, Component.literal(line), detailX, detailY, 0xFFFFFFFF);
                 detailY += 12;
             }
 
             // Timer info for active quests
-            if ("ACTIVE".equals(entry.state()) && entry.timer() > 0) {
+            if (entry.state() == QuestState.ACTIVE && entry.timer() > 0) {
                 detailY += 5;
                 graphics.drawString(font, Component.literal("Auto-resolve timer active"), detailX, detailY, 0xFFFF8800);
             }
@@ -154,6 +175,9 @@ public class QuestJournalScreen extends Screen {
 
         // Tab indicator
         String tabName = currentTab.name();
+        if (pageCount > 1) {
+            tabName += " (" + (currentPage + 1) + "/" + pageCount + ")";
+        }
         graphics.drawString(font, Component.literal("=== " + tabName + " ==="),
             panelX + 5, panelY - 10, 0xFFAAAAAA);
     }
@@ -1,5 +1,6 @@
 package ninja.trek.rpg.client.state;
 
+import ninja.trek.rpg.network.payloads.JournalMetadataPayload;
 import ninja.trek.rpg.network.payloads.SyncJournalPayload;
 import ninja.trek.rpg.network.payloads.SyncQuestStatePayload;
 
@@ -12,7 +13,10 @@ public class ClientRpgState {
     private String partyLeader = "";
     private List<String> partyMembers = new ArrayList<>();
     private final Map<String, String> questStates = new HashMap<>();
-    private List<SyncJournalPayload.JournalEntry> journalEntries = new ArrayList<>();
+    private long questRevision;
+    private long journalMetadataVersion;
+    private List<JournalMetadataPayload.QuestMetadata> journalMetadata = new ArrayList<>();
+    private SyncJournalPayload journalPage;
 
     private ClientRpgState() {}
 
@@ -35,11 +39,19 @@ public class ClientRpgState {
     }
 
     // Quest states
-    public void updateQuestStates(List<SyncQuestStatePayload.QuestStateEntry> entries) {
-        questStates.clear();
-        for (SyncQuestStatePayload.QuestStateEntry entry : entries) {
+    public void updateQuestStates(SyncQuestStatePayload payload) {
+        // Deltas carry only changed quests; entries are absolute states, so re-applying one is harmless
+        if (payload.fullSnapshot()) {
+            questStates.clear();
+        }
+        for (SyncQuestStatePayload.QuestStateEntry entry : payload.entries()) {
             questStates.put(entry.questId(), entry.state());
         }
+        questRevision = payload.revision();
+    }
+
+    public long getQuestRevision() {
+        return questRevision;
     }
 
     public String getQuestState(String fullId) {
@@ -51,11 +63,31 @@ public class ClientRpgState {
     }
 
     // Journal
-    public void updateJournal(List<SyncJournalPayload.JournalEntry> entries) {
-        this.journalEntries = new ArrayList<>(entries);
+    public void updateJournalMetadata(long version, List<JournalMetadataPayload.QuestMetadata> quests) {
+        this.journalMetadataVersion = version;
+        this.journalMetadata = new ArrayList<>(quests);
+    }
+
+    // 0 means nothing cached; registry versions are never 0
+    public long getJournalMetadataVersion() {
+        return journalMetadataVersion;
+    }
+
+    public JournalMetadataPayload.QuestMetadata getJournalMetadata(int questIndex) {
+        return questIndex >= 0 && questIndex < journalMetadata.size() ? journalMetadata.get(questIndex) : null;
+    }
+
+    public void updateJournalPage(SyncJournalPayload page) {
+        this.journalPage = page;
+    }
+
+    public SyncJournalPayload getJournalPage() {
+        return journalPage;
     }
 
-    public List<SyncJournalPayload.JournalEntry> getJournalEntries() {
-        return Collections.unmodifiableList(journalEntries);
+    public void clearServerCaches() {
+        journalMetadataVersion = 0;
+        journalMetadata = new ArrayList<>();
+        journalPage = null;
     }
 }
@@ -0,0 +1,68 @@
+package ninja.trek.rpg.bench;
+
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.compiled.CompiledQuestRequirements;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SyntheticContent;
+import ninja.trek.rpg.quest.QuestManager;
+import ninja.trek.rpg.quest.RequirementChecker;
+import ninja.trek.rpg.state.RpgWorldState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability re-evaluation after a single change, against a full scan of every quest.
+ * Synthetic requirements never pass, so each run re-checks the same quests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AvailabilityBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int questCount;
+
+    private RpgWorldState state;
+    private CompiledQuestRequirements[] requirements;
+    private String faction;
+    private boolean flag;
+    private int delta = 1;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RpgDataRegistry registry = SyntheticContent.publish(questCount, 42);
+        state = new RpgWorldState();
+        QuestManager.initializeQuestStates(state);
+        QuestManager.reevaluateAvailability(state);
+
+        requirements = registry.getAllQuests().stream()
+            .map(QuestData::fullId)
+            .map(registry::getCompiledRequirements)
+            .toArray(CompiledQuestRequirements[]::new);
+        faction = SyntheticContent.factionId(0);
+    }
+
+    @Benchmark
+    public void reevaluateAfterVarChange() {
+        flag = !flag;
+        state.setGlobalVar(SyntheticContent.varId(0), flag);
+        QuestManager.reevaluateAvailability(state);
+    }
+
+    @Benchmark
+    public void reevaluateAfterStatChange() {
+        // Alternate so the stat never drifts toward a passing threshold
+        delta = -delta;
+        state.addFactionStat(faction, "reputation", delta);
+        QuestManager.reevaluateAvailability(state);
+    }
+
+    @Benchmark
+    public void checkAllQuests(Blackhole blackhole) {
+        for (CompiledQuestRequirements requirement : requirements) {
+            blackhole.consume(RequirementChecker.checkRequirements(requirement, state));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ninja.trek.rpg.bench;
+
+import ninja.trek.rpg.data.loader.RpgDataLoader;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SyntheticContent;
+import ninja.trek.rpg.sim.ContentGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loading generated packs of 100 quests per faction: reading and parsing the JSON files,
+ * building the registry from parsed content, and validating cross-references.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ContentLoadBenchmark {
+
+    @Param({"10", "100"})
+    public int factions;
+
+    private ContentGenerator.Pack pack;
+    private RpgDataRegistry registry;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SyntheticContent.bootstrap();
+        pack = ContentGenerator.generate(ContentGenerator.Config.DEFAULT.withSize(factions, 100));
+        directory = Files.createTempDirectory("mc-rpg-bench");
+        pack.write(directory);
+        registry = pack.toBuilder().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public RpgDataRegistry loadDirectory() throws IOException {
+        return RpgDataLoader.loadDirectory(directory);
+    }
+
+    @Benchmark
+    public RpgDataRegistry build() {
+        return pack.toBuilder().build();
+    }
+
+    @Benchmark
+    public void validate() {
+        registry.validate();
+    }
+}
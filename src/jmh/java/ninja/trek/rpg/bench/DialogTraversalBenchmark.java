@@ -0,0 +1,54 @@
+package ninja.trek.rpg.bench;
+
+import ninja.trek.rpg.data.compiled.CompiledDialogTree;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SyntheticContent;
+import ninja.trek.rpg.dialog.DialogEvaluationContext;
+import ninja.trek.rpg.dialog.DialogManager;
+import ninja.trek.rpg.dialog.DialogSession;
+import ninja.trek.rpg.quest.QuestManager;
+import ninja.trek.rpg.state.RpgWorldState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks the synthetic dialog from its start node to the end the way a player would: each
+ * node gets a fresh evaluation context, its visible responses are computed and the last
+ * visible one is taken. No condition checks items, so no player is needed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class DialogTraversalBenchmark {
+
+    private RpgWorldState state;
+    private CompiledDialogTree tree;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RpgDataRegistry registry = SyntheticContent.publish(1000, 42);
+        state = new RpgWorldState();
+        QuestManager.initializeQuestStates(state);
+        tree = registry.getCompiledDialog(SyntheticContent.DIALOG_ID);
+    }
+
+    @Benchmark
+    public int traverse() {
+        DialogSession session = new DialogSession(tree, null);
+        int visited = 0;
+
+        CompiledDialogTree.Node node = tree.node(session.getCurrentNode());
+        while (node != null && node.responses().length > 0) {
+            long visible = DialogManager.getVisibleResponses(node, new DialogEvaluationContext(null, state));
+            session.setVisibleResponses(visible);
+
+            int response = session.getVisibleResponse(Long.bitCount(visible) - 1);
+            if (response < 0) break;
+            session.setCurrentNode(node.responses()[response].target());
+            node = tree.node(session.getCurrentNode());
+            visited++;
+        }
+        return visited;
+    }
+}
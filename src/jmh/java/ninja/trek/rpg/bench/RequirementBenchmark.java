@@ -0,0 +1,68 @@
+package ninja.trek.rpg.bench;
+
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.compiled.CompiledQuestRequirements;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SyntheticContent;
+import ninja.trek.rpg.quest.QuestManager;
+import ninja.trek.rpg.quest.RequirementChecker;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single requirement checks: one quest whose requirements all pass, so every check runs,
+ * one that fails on its first check, and parsing a comparison string.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RequirementBenchmark {
+
+    private static final int QUESTS = 1000;
+
+    private RpgWorldState state;
+    private CompiledQuestRequirements passing;
+    private CompiledQuestRequirements failing;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RpgDataRegistry registry = SyntheticContent.publish(QUESTS, 42);
+        state = new RpgWorldState();
+        QuestManager.initializeQuestStates(state);
+
+        // Satisfy every requirement of one quest
+        String passingId = SyntheticContent.questFullId(QUESTS / 2, QUESTS);
+        QuestData quest = registry.getQuest(passingId);
+        quest.requirements().questsCompleted().forEach(id -> state.setQuestState(id, QuestState.COMPLETED));
+        state.setFactionStat(quest.factionId(), "reputation", 5000);
+        quest.requirements().globalVars().forEach(state::setGlobalVar);
+        QuestManager.reevaluateAvailability(state);
+
+        passing = registry.getCompiledRequirements(passingId);
+        failing = registry.getCompiledRequirements(SyntheticContent.questFullId(QUESTS - 1, QUESTS));
+    }
+
+    @Benchmark
+    public boolean checkPassing() {
+        return RequirementChecker.checkRequirements(passing, state);
+    }
+
+    @Benchmark
+    public boolean checkFailing() {
+        return RequirementChecker.checkRequirements(failing, state);
+    }
+
+    @Benchmark
+    public boolean evaluateComparison(Comparisons comparisons) {
+        return RequirementChecker.evaluateComparison(comparisons.comparison, 5);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Comparisons {
+        @Param({">= 5", "< 10", "== 3", "7"})
+        public String comparison;
+    }
+}
@@ -0,0 +1,79 @@
+package ninja.trek.rpg.bench;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtOps;
+import net.minecraft.nbt.Tag;
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SyntheticContent;
+import ninja.trek.rpg.quest.QuestManager;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a party shard to NBT, compressing it as the save file would be, and loading it
+ * back. Half the quests are completed with a branch and timers, every faction has stats and
+ * every global var is set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WorldStateSaveBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int questCount;
+
+    private RpgWorldState state;
+    private CompoundTag tag;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        RpgDataRegistry registry = SyntheticContent.publish(questCount, 42);
+        state = new RpgWorldState();
+        QuestManager.initializeQuestStates(state);
+
+        int i = 0;
+        for (QuestData quest : registry.getAllQuests()) {
+            if (i++ % 2 == 0) {
+                state.setQuestState(quest.fullId(), QuestState.COMPLETED);
+                state.setCompletedBranch(quest.fullId(), quest.branches().getFirst().id());
+            } else {
+                state.setQuestState(quest.fullId(), QuestState.ACTIVE);
+                state.setQuestTimer(quest.fullId(), i * 20L);
+            }
+        }
+        for (int f = 0; f < SyntheticContent.factionCount(questCount); f++) {
+            state.setFactionStat(SyntheticContent.factionId(f), "reputation", f);
+            state.setFactionStat(SyntheticContent.factionId(f), "influence", -f);
+        }
+        for (int v = 0; v < SyntheticContent.varCount(questCount); v++) {
+            state.setGlobalVar(SyntheticContent.varId(v), v % 2 == 0);
+        }
+
+        tag = save();
+    }
+
+    @Benchmark
+    public CompoundTag save() {
+        Tag encoded = RpgWorldState.CODEC.encodeStart(NbtOps.INSTANCE, state).getOrThrow();
+        return (CompoundTag) encoded;
+    }
+
+    @Benchmark
+    public int saveCompressed() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        NbtIo.writeCompressed(save(), out);
+        return out.size();
+    }
+
+    @Benchmark
+    public RpgWorldState load() {
+        return RpgWorldState.load(tag);
+    }
+}
@@ -0,0 +1,136 @@
+package ninja.trek.rpg.data.loader;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.data.*;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.util.*;
+
+/**
+ * Generated content for benchmarks. The same size and seed always give the same registry.
+ *
+ * <p>There is one faction per 100 quests and one global var per 50. Each quest needs an
+ * earlier quest completed, a faction reputation no state reaches, and one global var. That
+ * way availability checks never succeed and every run does the same work. The registry
+ * also holds one dialog, {@value #DIALOG_ID}, a straight chain of nodes whose responses mix
+ * condition kinds. Benchmarks that want realistic packs instead use the simulator's
+ * {@code ContentGenerator}, whose quests unlock one another as a campaign progresses and
+ * whose dialogs are a few levels deep, so it can't hold these shapes fixed.
+ */
+public final class SyntheticContent {
+
+    public static final String DIALOG_ID = "bench_dialog";
+    public static final int DIALOG_DEPTH = 64;
+    public static final int DIALOG_WIDTH = 8;
+
+    private static boolean bootstrapped;
+
+    private SyntheticContent() {}
+
+    /**
+     * Builds the registry and makes it the current one, which world states bind to.
+     */
+    public static RpgDataRegistry publish(int questCount, long seed) {
+        bootstrap();
+        RpgDataRegistry registry = build(questCount, seed);
+        RpgDataRegistry.publish(registry);
+        return registry;
+    }
+
+    public static RpgDataRegistry build(int questCount, long seed) {
+        Random random = new Random(seed);
+        RpgDataRegistry.Builder builder = RpgDataRegistry.builder();
+
+        int factions = factionCount(questCount);
+        for (int f = 0; f < factions; f++) {
+            builder.faction(new FactionData(factionId(f), "Faction " + f, true,
+                Map.of("reputation", 0, "influence", 0), List.of()));
+        }
+
+        int vars = varCount(questCount);
+        for (int i = 0; i < questCount; i++) {
+            String faction = factionId(i % factions);
+            List<String> prerequisites = i > 0 ? List.of(questFullId(random.nextInt(i), questCount)) : List.of();
+            QuestRequirements requirements = new QuestRequirements(prerequisites,
+                Map.of(faction + ".reputation", ">= " + (1000 + random.nextInt(1000))),
+                Map.of(varId(i % vars), true));
+
+            List<QuestBranch> branches = List.of(
+                branch("help", Map.of(faction + ".reputation", 1), Map.of(varId((i + 1) % vars), true)),
+                branch("refuse", Map.of(faction + ".influence", 1), Map.of()));
+
+            builder.quest(new QuestData(questId(i), faction, 1 + random.nextInt(5), false, "", "",
+                "location_" + (i % 16), List.of(), requirements, branches, Optional.empty()));
+        }
+
+        builder.dialog(dialog(questCount));
+        return builder.build();
+    }
+
+    public static int factionCount(int questCount) {
+        return Math.max(1, questCount / 100);
+    }
+
+    public static int varCount(int questCount) {
+        return Math.max(1, questCount / 50);
+    }
+
+    public static String factionId(int index) {
+        return "faction_" + index;
+    }
+
+    public static String varId(int index) {
+        return "var_" + index;
+    }
+
+    public static String questId(int index) {
+        return "q_" + index;
+    }
+
+    public static String questFullId(int index, int questCount) {
+        return factionId(index % factionCount(questCount)) + "." + questId(index);
+    }
+
+    private static QuestBranch branch(String id, Map<String, Integer> stats, Map<String, Boolean> vars) {
+        QuestOutcomes outcomes = new QuestOutcomes(stats, vars, Map.of(), List.of(), Map.of(),
+            List.of(), List.of(), List.of(), List.of());
+        return new QuestBranch(id, "", BranchRequirements.EMPTY, outcomes);
+    }
+
+    private static DialogTreeData dialog(int questCount) {
+        Map<String, DialogNode> nodes = new LinkedHashMap<>();
+        for (int d = 0; d < DIALOG_DEPTH; d++) {
+            List<DialogResponse> responses = new ArrayList<>();
+            if (d < DIALOG_DEPTH - 1) {
+                for (int r = 0; r < DIALOG_WIDTH; r++) {
+                    responses.add(new DialogResponse("Response " + r, "node_" + (d + 1), condition(r, questCount)));
+                }
+            }
+            nodes.put("node_" + d, new DialogNode("node_" + d, "npc", "Node " + d, responses, Optional.empty()));
+        }
+        return new DialogTreeData(DIALOG_ID, "node_0", nodes);
+    }
+
+    private static Optional<DialogCondition> condition(int response, int questCount) {
+        Optional<String> none = Optional.empty();
+        return switch (response % 4) {
+            case 1 -> Optional.of(new DialogCondition(Optional.of(questFullId(response % questCount, questCount)), none, none, Optional.empty(), none));
+            case 2 -> Optional.of(new DialogCondition(none, Optional.of(factionId(0) + ".reputation >= 0"), none, Optional.empty(), none));
+            case 3 -> Optional.of(new DialogCondition(none, none, none, Optional.empty(), Optional.of(varId(0))));
+            default -> Optional.empty();
+        };
+    }
+
+    public static synchronized void bootstrap() {
+        if (bootstrapped) return;
+        bootstrapped = true;
+
+        // Per-quest logging would dominate the measurements
+        Configurator.setLevel(Mcrpg.MOD_ID, Level.WARN);
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+}
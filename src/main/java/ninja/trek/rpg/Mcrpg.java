@@ -16,6 +16,7 @@ import net.minecraft.server.permissions.Permissions;
 import net.minecraft.world.phys.Vec3;
 import ninja.trek.rpg.data.loader.RpgDataLoader;
 import ninja.trek.rpg.dialog.DialogManager;
+import ninja.trek.rpg.dialog.DialogSessionStore;
 import ninja.trek.rpg.entity.NpcEntity;
 import ninja.trek.rpg.entity.data.CharacterAppearance;
 import ninja.trek.rpg.entity.data.Race;
@@ -25,6 +26,9 @@ import ninja.trek.rpg.party.PartyCommands;
 import ninja.trek.rpg.party.PartyManager;
 import ninja.trek.rpg.quest.*;
 import ninja.trek.rpg.registry.ModEntities;
+import ninja.trek.rpg.state.RpgWorldState;
+import ninja.trek.rpg.state.WorldStateShards;
+import ninja.trek.rpg.state.WorldStateWriter;
 import ninja.trek.rpg.world.DimensionCommands;
 import ninja.trek.rpg.world.ModChunkGenerators;
 import ninja.trek.rpg.world.ModDimensions;
@@ -61,12 +65,48 @@ public class Mcrpg implements ModInitializer {
 		// Register auto-resolve tick handler
 		AutoResolveHandler.register();
 
-		// Server started - initialize quest system
-		ServerLifecycleEvents.SERVER_STARTED.register(server -> {
-			LOGGER.info("Initializing RPG quest system...");
-			FactionManager.initializeFactionStats(server);
-			CharacterManager.initializeCharacterLocations(server);
-			QuestManager.initializeQuestStates(server);
+		// Register quest state sync for joining players
+		QuestStateSync.register();
+
+		// Party shards are saved off-thread alongside each world save
+		WorldStateWriter.register();
+
+		// Dialog session cleanup and expiry
+		DialogSessionStore.register();
+
+		// Cached inventory item counts for requirement checks
+		InventoryItemIndex.register();
+
+		// Party shards load lazily - initialize each one's quest system as it comes in
+		WorldStateShards.onLoad((server, state) -> {
+			LOGGER.info("Initializing RPG quest system for party {}...", state.getPartyId());
+			QuestManager.engine(server, state).initialize();
+		});
+
+		ServerLifecycleEvents.SERVER_STARTED.register(WorldStateShards::migrateLegacy);
+
+		// Publish after this tick's mutations so off-thread readers see a consistent view
+		ServerTickEvents.END_SERVER_TICK.register(server -> WorldStateShards.publishSnapshots(server.getTickCount()));
+
+		// Quests and their requirements and levels may change on reload, so availability and
+		// deadlines are recomputed
+		ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+			if (success) {
+				for (RpgWorldState state : WorldStateShards.getAllLoaded()) {
+					QuestManager.reevaluateAll(state);
+					QuestManager.engine(server, state).rebuildSchedule();
+					QuestManager.syncQuestStateToAll(server, state);
+				}
+			}
+		});
+
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+			AutoResolveHandler.clear();
+			QuestStateSync.clear();
+			DialogSessionStore.clear();
+			InventoryItemIndex.clear();
+			WorldStateWriter.clear();
+			WorldStateShards.clear();
 		});
 
 		LOGGER.info("mc-rpg initialized successfully!");
@@ -97,7 +137,8 @@ public class Mcrpg implements ModInitializer {
 
 		ServerPlayNetworking.registerGlobalReceiver(QuestActionPayload.TYPE, (payload, context) -> {
 			context.server().execute(() -> {
-				QuestManager.acceptQuest(context.player().level().getServer(), payload.questFullId());
+				ServerPlayer player = context.player();
+				QuestManager.acceptQuest(player.level().getServer(), RpgWorldState.get(player), payload.questFullId());
 			});
 		});
 
@@ -109,7 +150,13 @@ public class Mcrpg implements ModInitializer {
 
 		ServerPlayNetworking.registerGlobalReceiver(RequestJournalPayload.TYPE, (payload, context) -> {
 			context.server().execute(() -> {
-				QuestManager.sendJournalData(context.player());
+				QuestManager.sendJournalData(context.player(), payload);
+			});
+		});
+
+		ServerPlayNetworking.registerGlobalReceiver(AckQuestStatePayload.TYPE, (payload, context) -> {
+			context.server().execute(() -> {
+				QuestStateSync.acknowledge(context.player(), payload.revision());
 			});
 		});
 	}
@@ -140,6 +187,16 @@ public class Mcrpg implements ModInitializer {
 						)
 					)
 				)
+				.then(Commands.literal("sessions")
+					.executes(ctx -> {
+						DialogSessionStore.Metrics metrics = DialogSessionStore.getMetrics();
+						ctx.getSource().sendSuccess(() -> Component.literal(String.format(
+							"Dialog sessions: %d active, %d opened, %d closed, %d expired, %d rejected",
+							metrics.active(), metrics.opened(), metrics.closed(), metrics.expired(), metrics.rejected()
+						)), false);
+						return metrics.active();
+					})
+				)
 			);
 
 			// Dimension commands
@@ -17,7 +17,8 @@ public record QuestData(
     List<String> characters,
     QuestRequirements requirements,
     List<QuestBranch> branches,
-    Optional<AutoResolveConfig> autoResolve
+    Optional<AutoResolveConfig> autoResolve,
+    String fullId
 ) {
     public static final Codec<QuestData> CODEC = RecordCodecBuilder.create(instance ->
         instance.group(
@@ -35,7 +36,11 @@ public record QuestData(
         ).apply(instance, QuestData::new)
     );
 
-    public String fullId() {
-        return factionId + "." + id;
+    // fullId is derived once here rather than concatenated on every lookup
+    public QuestData(String id, String factionId, int level, boolean consequential, String summary, String dialogId,
+                     String location, List<String> characters, QuestRequirements requirements,
+                     List<QuestBranch> branches, Optional<AutoResolveConfig> autoResolve) {
+        this(id, factionId, level, consequential, summary, dialogId, location, characters, requirements,
+            branches, autoResolve, factionId + "." + id);
     }
 }
@@ -0,0 +1,53 @@
+package ninja.trek.rpg.data.compiled;
+
+/**
+ * A parsed numeric comparison such as ">= 5". A bare number is treated as ">=".
+ */
+public record Comparison(Operator operator, int threshold) {
+
+    public enum Operator {
+        GREATER_OR_EQUAL,
+        LESS_OR_EQUAL,
+        GREATER,
+        LESS,
+        EQUAL,
+        NEVER
+    }
+
+    public static final Comparison NEVER = new Comparison(Operator.NEVER, 0);
+
+    public boolean test(int value) {
+        return switch (operator) {
+            case GREATER_OR_EQUAL -> value >= threshold;
+            case LESS_OR_EQUAL -> value <= threshold;
+            case GREATER -> value > threshold;
+            case LESS -> value < threshold;
+            case EQUAL -> value == threshold;
+            case NEVER -> false;
+        };
+    }
+
+    public static Comparison parse(String expression) {
+        String comparison = expression.trim();
+        if (comparison.startsWith(">=")) {
+            return new Comparison(Operator.GREATER_OR_EQUAL, parseThreshold(comparison.substring(2), expression));
+        } else if (comparison.startsWith("<=")) {
+            return new Comparison(Operator.LESS_OR_EQUAL, parseThreshold(comparison.substring(2), expression));
+        } else if (comparison.startsWith(">")) {
+            return new Comparison(Operator.GREATER, parseThreshold(comparison.substring(1), expression));
+        } else if (comparison.startsWith("<")) {
+            return new Comparison(Operator.LESS, parseThreshold(comparison.substring(1), expression));
+        } else if (comparison.startsWith("==")) {
+            return new Comparison(Operator.EQUAL, parseThreshold(comparison.substring(2), expression));
+        }
+        return new Comparison(Operator.GREATER_OR_EQUAL, parseThreshold(comparison, expression));
+    }
+
+    private static int parseThreshold(String number, String expression) {
+        try {
+            return Integer.parseInt(number.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed comparison: '" + expression + "'");
+        }
+    }
+}
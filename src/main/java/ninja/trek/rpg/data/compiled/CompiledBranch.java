@@ -0,0 +1,7 @@
+package ninja.trek.rpg.data.compiled;
+
+/**
+ * Load-time compiled form of a QuestBranch: its item requirements and its faction stat
+ * outcomes with the keys already split.
+ */
+public record CompiledBranch(CompiledBranchRequirements requirements, StatDelta[] factionStats) {}
@@ -0,0 +1,9 @@
+package ninja.trek.rpg.data.compiled;
+
+/**
+ * Load-time compiled form of BranchRequirements.
+ */
+public record CompiledBranchRequirements(ItemCheck[] items) {
+
+    public static final CompiledBranchRequirements EMPTY = new CompiledBranchRequirements(new ItemCheck[0]);
+}
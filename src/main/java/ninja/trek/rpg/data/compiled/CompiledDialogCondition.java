@@ -0,0 +1,14 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+/**
+ * Load-time compiled form of DialogCondition. Absent checks are null.
+ */
+public record CompiledDialogCondition(
+    SymbolTable symbols,
+    QuestRef questCompleted,
+    StatCheck factionStat,
+    ItemCheck hasItem,
+    VarCheck globalVar
+) {}
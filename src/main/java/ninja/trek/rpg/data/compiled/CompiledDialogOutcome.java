@@ -0,0 +1,10 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.DialogOutcome;
+
+/**
+ * Load-time compiled form of DialogOutcome, with the faction stat keys split and the items
+ * to give and take already resolved. Malformed stat keys and unknown items are left out.
+ */
+public record CompiledDialogOutcome(DialogOutcome outcome, StatDelta[] factionStats,
+                                    ItemCheck[] giveItems, ItemCheck[] takeItems) {}
@@ -0,0 +1,26 @@
+package ninja.trek.rpg.data.compiled;
+
+/**
+ * Load-time compiled form of DialogTreeData. Nodes live in an array and each response points
+ * straight at its target node's index; targets that don't exist are {@link #MISSING}.
+ */
+public record CompiledDialogTree(String id, int startNode, Node[] nodes) {
+
+    public static final int MISSING = -1;
+    // Visible responses are tracked as a bit mask per session
+    public static final int MAX_RESPONSES = Long.SIZE;
+
+    public Node node(int index) {
+        return index >= 0 && index < nodes.length ? nodes[index] : null;
+    }
+
+    /**
+     * A null outcome means entering the node changes nothing.
+     */
+    public record Node(String id, String speaker, String text, CompiledDialogOutcome outcome, Response[] responses) {}
+
+    /**
+     * A null condition means the response is always shown.
+     */
+    public record Response(String text, int target, CompiledDialogCondition condition) {}
+}
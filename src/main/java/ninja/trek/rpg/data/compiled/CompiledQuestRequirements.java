@@ -0,0 +1,17 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+/**
+ * Load-time compiled form of QuestRequirements. Arrays are never mutated after compilation;
+ * interned ids are only valid against {@code symbols}.
+ */
+public record CompiledQuestRequirements(
+    SymbolTable symbols,
+    QuestRef[] questsCompleted,
+    StatCheck[] factionStats,
+    VarCheck[] globalVars
+) {
+    public static final CompiledQuestRequirements EMPTY =
+        new CompiledQuestRequirements(SymbolTable.EMPTY, new QuestRef[0], new StatCheck[0], new VarCheck[0]);
+}
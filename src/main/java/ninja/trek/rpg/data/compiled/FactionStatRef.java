@@ -0,0 +1,26 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+/**
+ * A pre-split "faction.stat" key with its interned faction and stat ids.
+ */
+public record FactionStatRef(String factionId, String stat, int factionIndex, int statIndex) {
+
+    public static FactionStatRef parse(String key, SymbolTable symbols) {
+        String[] parts = key.split("\\.", 2);
+        if (parts.length != 2 || parts[0].isEmpty() || parts[1].isEmpty()) {
+            throw new IllegalArgumentException("Malformed faction stat key: '" + key + "' (expected faction.stat)");
+        }
+        return new FactionStatRef(parts[0], parts[1],
+            symbols.factions().indexOf(parts[0]), symbols.stats().indexOf(parts[1]));
+    }
+
+    public boolean isInterned() {
+        return factionIndex >= 0 && statIndex >= 0;
+    }
+
+    public String key() {
+        return factionId + "." + stat;
+    }
+}
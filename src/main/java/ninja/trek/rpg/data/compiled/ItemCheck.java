@@ -0,0 +1,10 @@
+package ninja.trek.rpg.data.compiled;
+
+import net.minecraft.resources.Identifier;
+import net.minecraft.world.item.Item;
+
+/**
+ * An item and amount, resolved at load. {@code item} is null when the id is malformed or
+ * unknown; such a check can never be satisfied.
+ */
+public record ItemCheck(Identifier itemId, Item item, int count) {}
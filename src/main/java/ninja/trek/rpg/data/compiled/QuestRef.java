@@ -0,0 +1,10 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+public record QuestRef(String fullId, int index) {
+
+    public static QuestRef resolve(String fullId, SymbolTable symbols) {
+        return new QuestRef(fullId, symbols.quests().indexOf(fullId));
+    }
+}
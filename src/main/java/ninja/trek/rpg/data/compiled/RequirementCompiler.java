@@ -0,0 +1,221 @@
+package ninja.trek.rpg.data.compiled;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.Identifier;
+import net.minecraft.world.item.Item;
+import ninja.trek.rpg.data.BranchRequirements;
+import ninja.trek.rpg.data.DialogCondition;
+import ninja.trek.rpg.data.DialogNode;
+import ninja.trek.rpg.data.DialogOutcome;
+import ninja.trek.rpg.data.DialogResponse;
+import ninja.trek.rpg.data.DialogTreeData;
+import ninja.trek.rpg.data.QuestBranch;
+import ninja.trek.rpg.data.QuestRequirements;
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles requirement and condition data into predicate objects, and dialog trees into
+ * indexed graphs, collecting malformed expressions and dangling references as errors
+ * instead of failing at evaluation time.
+ */
+public class RequirementCompiler {
+
+    private final SymbolTable symbols;
+    private final List<String> errors = new ArrayList<>();
+
+    public RequirementCompiler(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public CompiledQuestRequirements compile(String context, QuestRequirements requirements) {
+        if (requirements.questsCompleted().isEmpty() && requirements.factionStats().isEmpty()
+            && requirements.globalVars().isEmpty()) {
+            return CompiledQuestRequirements.EMPTY;
+        }
+
+        List<StatCheck> stats = new ArrayList<>();
+        for (Map.Entry<String, String> entry : requirements.factionStats().entrySet()) {
+            FactionStatRef ref = parseStatRef(context, entry.getKey());
+            if (ref == null) continue;
+            stats.add(new StatCheck(ref, parseComparison(context, entry.getValue())));
+        }
+
+        List<VarCheck> vars = new ArrayList<>();
+        requirements.globalVars().forEach((key, expected) -> vars.add(VarCheck.resolve(key, expected, symbols)));
+
+        List<QuestRef> quests = new ArrayList<>();
+        for (String questId : requirements.questsCompleted()) {
+            quests.add(QuestRef.resolve(questId, symbols));
+        }
+
+        return new CompiledQuestRequirements(
+            symbols,
+            quests.toArray(new QuestRef[0]),
+            stats.toArray(new StatCheck[0]),
+            vars.toArray(new VarCheck[0])
+        );
+    }
+
+    public CompiledBranch compile(String context, QuestBranch branch) {
+        return new CompiledBranch(compile(context, branch.requirements()),
+            compileStatDeltas(context, branch.outcomes().factionStats()));
+    }
+
+    public CompiledBranchRequirements compile(String context, BranchRequirements requirements) {
+        if (requirements.itemRequirements().isEmpty()) {
+            return CompiledBranchRequirements.EMPTY;
+        }
+
+        List<ItemCheck> items = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : requirements.itemRequirements().entrySet()) {
+            items.add(resolveItem(context, entry.getKey(), entry.getValue()));
+        }
+        return new CompiledBranchRequirements(items.toArray(new ItemCheck[0]));
+    }
+
+    public CompiledDialogCondition compile(String context, DialogCondition condition) {
+        StatCheck statCheck = null;
+        if (condition.factionStat().isPresent()) {
+            // Format: "faction.stat >= value"
+            String expr = condition.factionStat().get();
+            String[] parts = expr.trim().split("\\s+", 2);
+            if (parts.length == 2) {
+                FactionStatRef ref = parseStatRef(context, parts[0]);
+                if (ref != null) {
+                    statCheck = new StatCheck(ref, parseComparison(context, parts[1]));
+                }
+            } else {
+                errors.add(context + ": malformed faction_stat condition '" + expr + "' (expected 'faction.stat >= value')");
+            }
+        }
+
+        ItemCheck itemCheck = null;
+        if (condition.hasItem().isPresent()) {
+            itemCheck = resolveItem(context, condition.hasItem().get(), condition.hasItemCount().orElse(1));
+        }
+
+        return new CompiledDialogCondition(
+            symbols,
+            condition.questCompleted().map(id -> QuestRef.resolve(id, symbols)).orElse(null),
+            statCheck,
+            itemCheck,
+            condition.globalVar().map(key -> VarCheck.resolve(key, true, symbols)).orElse(null)
+        );
+    }
+
+    public CompiledDialogTree compile(DialogTreeData tree) {
+        String context = "Dialog " + tree.id();
+
+        List<String> nodeIds = new ArrayList<>(tree.nodes().keySet());
+        Object2IntOpenHashMap<String> indices = new Object2IntOpenHashMap<>(nodeIds.size());
+        indices.defaultReturnValue(CompiledDialogTree.MISSING);
+        for (int i = 0; i < nodeIds.size(); i++) {
+            indices.put(nodeIds.get(i), i);
+        }
+
+        int start = indices.getInt(tree.startNode());
+        if (start == CompiledDialogTree.MISSING) {
+            errors.add(context + ": start_node '" + tree.startNode() + "' does not exist");
+        }
+
+        CompiledDialogTree.Node[] nodes = new CompiledDialogTree.Node[nodeIds.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            String nodeId = nodeIds.get(i);
+            DialogNode node = tree.nodes().get(nodeId);
+            String nodeContext = context + " node " + nodeId;
+
+            List<DialogResponse> responses = node.responses();
+            if (responses.size() > CompiledDialogTree.MAX_RESPONSES) {
+                errors.add(nodeContext + ": more than " + CompiledDialogTree.MAX_RESPONSES + " responses; the rest are dropped");
+                responses = responses.subList(0, CompiledDialogTree.MAX_RESPONSES);
+            }
+
+            CompiledDialogTree.Response[] compiled = new CompiledDialogTree.Response[responses.size()];
+            for (int r = 0; r < compiled.length; r++) {
+                DialogResponse response = responses.get(r);
+                int target = indices.getInt(response.nextNode());
+                if (target == CompiledDialogTree.MISSING) {
+                    errors.add(nodeContext + ": next_node '" + response.nextNode() + "' does not exist");
+                }
+                compiled[r] = new CompiledDialogTree.Response(response.text(), target,
+                    response.condition().map(condition -> compile(nodeContext, condition)).orElse(null));
+            }
+
+            CompiledDialogOutcome outcome = node.outcome().map(o -> compile(nodeContext, o)).orElse(null);
+            nodes[i] = new CompiledDialogTree.Node(nodeId, node.speaker(), node.text(), outcome, compiled);
+        }
+
+        return new CompiledDialogTree(tree.id(), start, nodes);
+    }
+
+    public CompiledDialogOutcome compile(String context, DialogOutcome outcome) {
+        return new CompiledDialogOutcome(outcome,
+            compileStatDeltas(context, outcome.factionStats()),
+            resolveItems(context, outcome.giveItems()),
+            resolveItems(context, outcome.takeItems()));
+    }
+
+    private StatDelta[] compileStatDeltas(String context, Map<String, Integer> deltas) {
+        List<StatDelta> compiled = new ArrayList<>();
+        deltas.forEach((key, delta) -> {
+            FactionStatRef ref = parseStatRef(context, key);
+            if (ref != null) compiled.add(new StatDelta(ref, delta));
+        });
+        return compiled.toArray(new StatDelta[0]);
+    }
+
+    private ItemCheck[] resolveItems(String context, Map<String, Integer> items) {
+        List<ItemCheck> resolved = new ArrayList<>();
+        items.forEach((itemId, count) -> {
+            ItemCheck check = resolveItem(context, itemId, count);
+            if (check.item() != null) resolved.add(check);
+        });
+        return resolved.toArray(new ItemCheck[0]);
+    }
+
+    // An unparseable or unknown item can never be satisfied
+    private ItemCheck resolveItem(String context, String itemId, int count) {
+        Identifier id = parseItemId(context, itemId);
+        Item item = id != null ? BuiltInRegistries.ITEM.getOptional(id).orElse(null) : null;
+        if (id != null && item == null) {
+            errors.add(context + ": unknown item '" + itemId + "'");
+        }
+        return new ItemCheck(id, item, item != null ? count : Integer.MAX_VALUE);
+    }
+
+    private FactionStatRef parseStatRef(String context, String key) {
+        try {
+            return FactionStatRef.parse(key, symbols);
+        } catch (IllegalArgumentException e) {
+            errors.add(context + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Comparison parseComparison(String context, String expression) {
+        try {
+            return Comparison.parse(expression);
+        } catch (IllegalArgumentException e) {
+            errors.add(context + ": " + e.getMessage());
+            return Comparison.NEVER;
+        }
+    }
+
+    private Identifier parseItemId(String context, String itemId) {
+        Identifier id = Identifier.tryParse(itemId);
+        if (id == null) {
+            errors.add(context + ": malformed item id '" + itemId + "'");
+        }
+        return id;
+    }
+}
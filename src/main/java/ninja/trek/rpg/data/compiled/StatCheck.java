@@ -0,0 +1,3 @@
+package ninja.trek.rpg.data.compiled;
+
+public record StatCheck(FactionStatRef stat, Comparison comparison) {}
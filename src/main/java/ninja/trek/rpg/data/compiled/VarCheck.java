@@ -0,0 +1,10 @@
+package ninja.trek.rpg.data.compiled;
+
+import ninja.trek.rpg.data.loader.SymbolTable;
+
+public record VarCheck(String key, int index, boolean expected) {
+
+    public static VarCheck resolve(String key, boolean expected, SymbolTable symbols) {
+        return new VarCheck(key, symbols.globalVars().indexOf(key), expected);
+    }
+}
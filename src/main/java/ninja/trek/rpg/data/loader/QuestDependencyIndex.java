@@ -0,0 +1,82 @@
+package ninja.trek.rpg.data.loader;
+
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.QuestRequirements;
+import ninja.trek.rpg.state.PendingChanges;
+
+import java.util.*;
+
+/**
+ * Reverse index from requirement keys (quest ids, "faction.stat" keys, global vars)
+ * to the quests whose requirements reference them. Built once per data load.
+ */
+public class QuestDependencyIndex {
+
+    public static final QuestDependencyIndex EMPTY = new QuestDependencyIndex(Map.of(), Map.of(), Map.of());
+
+    private final Map<String, List<String>> byQuest;
+    private final Map<String, List<String>> byFactionStat;
+    private final Map<String, List<String>> byGlobalVar;
+
+    private QuestDependencyIndex(Map<String, List<String>> byQuest,
+                                 Map<String, List<String>> byFactionStat,
+                                 Map<String, List<String>> byGlobalVar) {
+        this.byQuest = byQuest;
+        this.byFactionStat = byFactionStat;
+        this.byGlobalVar = byGlobalVar;
+    }
+
+    public static QuestDependencyIndex build(Collection<QuestData> quests) {
+        Map<String, List<String>> byQuest = new HashMap<>();
+        Map<String, List<String>> byFactionStat = new HashMap<>();
+        Map<String, List<String>> byGlobalVar = new HashMap<>();
+
+        for (QuestData quest : quests) {
+            QuestRequirements requirements = quest.requirements();
+            String fullId = quest.fullId();
+            for (String questId : requirements.questsCompleted()) {
+                byQuest.computeIfAbsent(questId, k -> new ArrayList<>()).add(fullId);
+            }
+            for (String key : requirements.factionStats().keySet()) {
+                byFactionStat.computeIfAbsent(key, k -> new ArrayList<>()).add(fullId);
+            }
+            for (String key : requirements.globalVars().keySet()) {
+                byGlobalVar.computeIfAbsent(key, k -> new ArrayList<>()).add(fullId);
+            }
+        }
+
+        return new QuestDependencyIndex(freeze(byQuest), freeze(byFactionStat), freeze(byGlobalVar));
+    }
+
+    private static Map<String, List<String>> freeze(Map<String, List<String>> map) {
+        Map<String, List<String>> frozen = new HashMap<>();
+        map.forEach((key, list) -> frozen.put(key, List.copyOf(list)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    public List<String> getDependentsOfQuest(String fullId) {
+        return byQuest.getOrDefault(fullId, List.of());
+    }
+
+    public List<String> getDependentsOfFactionStat(String key) {
+        return byFactionStat.getOrDefault(key, List.of());
+    }
+
+    public List<String> getDependentsOfGlobalVar(String key) {
+        return byGlobalVar.getOrDefault(key, List.of());
+    }
+
+    public Set<String> collectAffected(PendingChanges changes) {
+        Set<String> affected = new LinkedHashSet<>();
+        for (String questId : changes.getQuests()) {
+            affected.addAll(getDependentsOfQuest(questId));
+        }
+        for (String key : changes.getFactionStats()) {
+            affected.addAll(getDependentsOfFactionStat(key));
+        }
+        for (String key : changes.getGlobalVars()) {
+            affected.addAll(getDependentsOfGlobalVar(key));
+        }
+        return affected;
+    }
+}
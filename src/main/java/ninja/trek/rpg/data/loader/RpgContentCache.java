@@ -0,0 +1,427 @@
+package ninja.trek.rpg.data.loader;
+
+import net.fabricmc.loader.api.FabricLoader;
+import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.data.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Compact binary image of the parsed RPG content, keyed by a hash of the source files.
+ * When the hash matches, the registry is rebuilt straight from the image instead of
+ * running every file through JSON and the codecs again.
+ *
+ * <p>Only parsing is skipped: every source file is still read to compute the hash, so load
+ * I/O still grows with the number of files. Pack resources don't expose a size or
+ * modification time that a cheaper check could be keyed on.
+ */
+public final class RpgContentCache {
+
+    private static final int MAGIC = 0x4D525047; // "MRPG"
+    // Bump whenever the record layout below changes
+    private static final int FORMAT_VERSION = 1;
+
+    private RpgContentCache() {}
+
+    public static boolean isEnabled() {
+        return Boolean.parseBoolean(System.getProperty("mcrpg.contentCache", "true"));
+    }
+
+    public static Path getCachePath() {
+        return FabricLoader.getInstance().getGameDir().resolve(".cache").resolve(Mcrpg.MOD_ID).resolve("content.bin");
+    }
+
+    static String hash(List<RpgDataLoader.SourceSet> sources) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer lengths = ByteBuffer.allocate(4);
+        for (RpgDataLoader.SourceSet set : sources) {
+            digest.update(set.category().getBytes(StandardCharsets.UTF_8));
+            for (RpgDataLoader.SourceFile file : set.files()) {
+                digest.update(file.id().toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(lengths.clear().putInt(file.bytes().length).flip());
+                digest.update(file.bytes());
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the cached registry, or null when the image is missing, stale or unreadable.
+     */
+    static RpgDataRegistry read(Path path, String hash) {
+        if (!Files.isRegularFile(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Reader in = new Reader(buffer);
+
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) return null;
+            if (!hash.equals(in.readString())) return null;
+
+            RpgDataRegistry.Builder builder = RpgDataRegistry.builder();
+            in.readList(RpgContentCache::readCharacter).forEach(builder::character);
+            in.readList(RpgContentCache::readLocation).forEach(builder::location);
+            in.readList(RpgContentCache::readFaction).forEach(builder::faction);
+            in.readList(RpgContentCache::readQuest).forEach(builder::quest);
+            in.readList(RpgContentCache::readDialog).forEach(builder::dialog);
+            return builder.build();
+        } catch (Exception e) {
+            Mcrpg.LOGGER.warn("Ignoring unreadable RPG content cache {}: {}", path, e.toString());
+            return null;
+        }
+    }
+
+    static void write(Path path, String hash, RpgDataRegistry registry) {
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, hash);
+                writeList(out, registry.getAllCharacters(), RpgContentCache::writeCharacter);
+                writeList(out, registry.getAllLocations(), RpgContentCache::writeLocation);
+                writeList(out, registry.getAllFactions(), RpgContentCache::writeFaction);
+                writeList(out, registry.getAllQuests(), RpgContentCache::writeQuest);
+                writeList(out, registry.getAllDialogs(), RpgContentCache::writeDialog);
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Mcrpg.LOGGER.warn("Failed to write RPG content cache {}: {}", path, e.getMessage());
+        }
+    }
+
+    // --- Characters ---
+
+    private static void writeCharacter(DataOutputStream out, CharacterData character) throws IOException {
+        writeString(out, character.id());
+        writeString(out, character.name());
+        CharacterAppearanceData appearance = character.appearance();
+        writeString(out, appearance.race());
+        writeString(out, appearance.gender());
+        writeString(out, appearance.ageRange());
+        writeStrings(out, appearance.notableFeatures());
+        writeString(out, character.personality());
+        SpeechData speech = character.speech();
+        writeString(out, speech.formality());
+        writeString(out, speech.vocabulary());
+        writeStrings(out, speech.verbalTics());
+        writeStrings(out, speech.avoids());
+        writeStrings(out, speech.sampleLines());
+        writeString(out, character.backstory());
+        writeString(out, character.homeLocation());
+    }
+
+    private static CharacterData readCharacter(Reader in) {
+        String id = in.readString();
+        String name = in.readString();
+        CharacterAppearanceData appearance = new CharacterAppearanceData(
+            in.readString(), in.readString(), in.readString(), in.readStrings());
+        String personality = in.readString();
+        SpeechData speech = new SpeechData(
+            in.readString(), in.readString(), in.readStrings(), in.readStrings(), in.readStrings());
+        return new CharacterData(id, name, appearance, personality, speech, in.readString(), in.readString());
+    }
+
+    // --- Locations ---
+
+    private static void writeLocation(DataOutputStream out, LocationData location) throws IOException {
+        writeString(out, location.id());
+        writeString(out, location.name());
+        writeStrings(out, location.tags());
+        writeStrings(out, location.defaultConnections());
+        writeMap(out, location.states(), (o, state) -> {
+            writeString(o, state.description());
+            AtmosphereData atmosphere = state.atmosphere();
+            writeString(o, atmosphere.lighting());
+            writeString(o, atmosphere.sounds());
+            writeString(o, atmosphere.smells());
+            writeString(o, atmosphere.mood());
+            writeOptional(o, state.connections(), RpgContentCache::writeStrings);
+        });
+        writeString(out, location.defaultState());
+    }
+
+    private static LocationData readLocation(Reader in) {
+        String id = in.readString();
+        String name = in.readString();
+        List<String> tags = in.readStrings();
+        List<String> connections = in.readStrings();
+        Map<String, LocationStateData> states = in.readMap(r -> new LocationStateData(
+            r.readString(),
+            new AtmosphereData(r.readString(), r.readString(), r.readString(), r.readString()),
+            r.readOptional(Reader::readStrings)));
+        return new LocationData(id, name, tags, connections, states, in.readString());
+    }
+
+    // --- Factions ---
+
+    private static void writeFaction(DataOutputStream out, FactionData faction) throws IOException {
+        writeString(out, faction.id());
+        writeString(out, faction.name());
+        out.writeBoolean(faction.unlocked());
+        writeMap(out, faction.stats(), DataOutputStream::writeInt);
+        writeStrings(out, faction.members());
+    }
+
+    private static FactionData readFaction(Reader in) {
+        return new FactionData(in.readString(), in.readString(), in.readBoolean(),
+            in.readMap(Reader::readInt), in.readStrings());
+    }
+
+    // --- Quests ---
+
+    private static void writeQuest(DataOutputStream out, QuestData quest) throws IOException {
+        writeString(out, quest.id());
+        writeString(out, quest.factionId());
+        out.writeInt(quest.level());
+        out.writeBoolean(quest.consequential());
+        writeString(out, quest.summary());
+        writeString(out, quest.dialogId());
+        writeString(out, quest.location());
+        writeStrings(out, quest.characters());
+        QuestRequirements requirements = quest.requirements();
+        writeStrings(out, requirements.questsCompleted());
+        writeMap(out, requirements.factionStats(), RpgContentCache::writeString);
+        writeMap(out, requirements.globalVars(), DataOutputStream::writeBoolean);
+        writeList(out, quest.branches(), RpgContentCache::writeBranch);
+        writeOptional(out, quest.autoResolve(), (o, config) -> {
+            writeString(o, config.type().name());
+            writeMap(o, config.weights(), DataOutputStream::writeInt);
+            writeOptional(o, config.fallback(), RpgContentCache::writeString);
+        });
+    }
+
+    private static QuestData readQuest(Reader in) {
+        String id = in.readString();
+        String factionId = in.readString();
+        int level = in.readInt();
+        boolean consequential = in.readBoolean();
+        String summary = in.readString();
+        String dialogId = in.readString();
+        String location = in.readString();
+        List<String> characters = in.readStrings();
+        QuestRequirements requirements = new QuestRequirements(
+            in.readStrings(), in.readMap(Reader::readString), in.readMap(Reader::readBoolean));
+        List<QuestBranch> branches = in.readList(RpgContentCache::readBranch);
+        Optional<AutoResolveConfig> autoResolve = in.readOptional(r -> new AutoResolveConfig(
+            AutoResolveConfig.AutoResolveType.valueOf(r.readString()),
+            r.readMap(Reader::readInt),
+            r.readOptional(Reader::readString)));
+        return new QuestData(id, factionId, level, consequential, summary, dialogId, location, characters,
+            requirements, branches, autoResolve);
+    }
+
+    private static void writeBranch(DataOutputStream out, QuestBranch branch) throws IOException {
+        writeString(out, branch.id());
+        writeString(out, branch.summary());
+        writeMap(out, branch.requirements().itemRequirements(), DataOutputStream::writeInt);
+        QuestOutcomes outcomes = branch.outcomes();
+        writeMap(out, outcomes.factionStats(), DataOutputStream::writeInt);
+        writeMap(out, outcomes.globalVars(), DataOutputStream::writeBoolean);
+        writeMap(out, outcomes.locationStates(), RpgContentCache::writeString);
+        writeList(out, outcomes.characterExtras(), (o, extra) -> {
+            writeString(o, extra.character());
+            writeString(o, extra.text());
+        });
+        writeMap(out, outcomes.moveCharacters(), RpgContentCache::writeString);
+        writeStrings(out, outcomes.unlocks());
+        writeStrings(out, outcomes.triggers());
+        writeStrings(out, outcomes.blocks());
+        writeStrings(out, outcomes.unlockFactions());
+    }
+
+    private static QuestBranch readBranch(Reader in) {
+        String id = in.readString();
+        String summary = in.readString();
+        BranchRequirements requirements = new BranchRequirements(in.readMap(Reader::readInt));
+        QuestOutcomes outcomes = new QuestOutcomes(
+            in.readMap(Reader::readInt),
+            in.readMap(Reader::readBoolean),
+            in.readMap(Reader::readString),
+            in.readList(r -> new CharacterExtraEntry(r.readString(), r.readString())),
+            in.readMap(Reader::readString),
+            in.readStrings(),
+            in.readStrings(),
+            in.readStrings(),
+            in.readStrings());
+        return new QuestBranch(id, summary, requirements, outcomes);
+    }
+
+    // --- Dialogs ---
+
+    private static void writeDialog(DataOutputStream out, DialogTreeData dialog) throws IOException {
+        writeString(out, dialog.id());
+        writeString(out, dialog.startNode());
+        writeMap(out, dialog.nodes(), RpgContentCache::writeNode);
+    }
+
+    private static DialogTreeData readDialog(Reader in) {
+        return new DialogTreeData(in.readString(), in.readString(), in.readMap(RpgContentCache::readNode));
+    }
+
+    private static void writeNode(DataOutputStream out, DialogNode node) throws IOException {
+        writeString(out, node.id());
+        writeString(out, node.speaker());
+        writeString(out, node.text());
+        writeList(out, node.responses(), (o, response) -> {
+            writeString(o, response.text());
+            writeString(o, response.nextNode());
+            writeOptional(o, response.condition(), (c, condition) -> {
+                writeOptional(c, condition.questCompleted(), RpgContentCache::writeString);
+                writeOptional(c, condition.factionStat(), RpgContentCache::writeString);
+                writeOptional(c, condition.hasItem(), RpgContentCache::writeString);
+                writeOptional(c, condition.hasItemCount(), DataOutputStream::writeInt);
+                writeOptional(c, condition.globalVar(), RpgContentCache::writeString);
+            });
+        });
+        writeOptional(out, node.outcome(), (o, outcome) -> {
+            writeOptional(o, outcome.selectBranch(), RpgContentCache::writeString);
+            writeMap(o, outcome.factionStats(), DataOutputStream::writeInt);
+            writeMap(o, outcome.globalVars(), DataOutputStream::writeBoolean);
+            writeMap(o, outcome.giveItems(), DataOutputStream::writeInt);
+            writeMap(o, outcome.takeItems(), DataOutputStream::writeInt);
+        });
+    }
+
+    private static DialogNode readNode(Reader in) {
+        String id = in.readString();
+        String speaker = in.readString();
+        String text = in.readString();
+        List<DialogResponse> responses = in.readList(r -> new DialogResponse(
+            r.readString(),
+            r.readString(),
+            r.readOptional(c -> new DialogCondition(
+                c.readOptional(Reader::readString),
+                c.readOptional(Reader::readString),
+                c.readOptional(Reader::readString),
+                c.readOptional(Reader::readInt),
+                c.readOptional(Reader::readString)))));
+        Optional<DialogOutcome> outcome = in.readOptional(r -> new DialogOutcome(
+            r.readOptional(Reader::readString),
+            r.readMap(Reader::readInt),
+            r.readMap(Reader::readBoolean),
+            r.readMap(Reader::readInt),
+            r.readMap(Reader::readInt)));
+        return new DialogNode(id, speaker, text, responses, outcome);
+    }
+
+    // --- Primitives ---
+
+    @FunctionalInterface
+    private interface ValueWriter<T> {
+        void write(DataOutputStream out, T value) throws IOException;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        writeList(out, values, RpgContentCache::writeString);
+    }
+
+    private static <T> void writeList(DataOutputStream out, Collection<T> values, ValueWriter<T> writer) throws IOException {
+        out.writeInt(values.size());
+        for (T value : values) {
+            writer.write(out, value);
+        }
+    }
+
+    private static <V> void writeMap(DataOutputStream out, Map<String, V> values, ValueWriter<V> writer) throws IOException {
+        out.writeInt(values.size());
+        for (Map.Entry<String, V> entry : values.entrySet()) {
+            writeString(out, entry.getKey());
+            writer.write(out, entry.getValue());
+        }
+    }
+
+    private static <T> void writeOptional(DataOutputStream out, Optional<T> value, ValueWriter<T> writer) throws IOException {
+        out.writeBoolean(value.isPresent());
+        if (value.isPresent()) {
+            writer.write(out, value.get());
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        int readInt() {
+            return buffer.getInt();
+        }
+
+        boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0) return null;
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        List<String> readStrings() {
+            return readList(Reader::readString);
+        }
+
+        <T> List<T> readList(Function<Reader, T> reader) {
+            int size = buffer.getInt();
+            List<T> values = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                values.add(reader.apply(this));
+            }
+            return Collections.unmodifiableList(values);
+        }
+
+        // Insertion order matters for weighted auto-resolve, so keep it
+        <V> Map<String, V> readMap(Function<Reader, V> reader) {
+            int size = buffer.getInt();
+            Map<String, V> values = new LinkedHashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                values.put(key, reader.apply(this));
+            }
+            return Collections.unmodifiableMap(values);
+        }
+
+        <T> Optional<T> readOptional(Function<Reader, T> reader) {
+            return readBoolean() ? Optional.of(reader.apply(this)) : Optional.empty();
+        }
+    }
+}
@@ -4,20 +4,34 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.fabric.api.resource.SimpleResourceReloadListener;
 import net.minecraft.resources.Identifier;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
 import ninja.trek.rpg.Mcrpg;
 import ninja.trek.rpg.data.*;
 
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
-public class RpgDataLoader implements SimpleSynchronousResourceReloadListener {
+/**
+ * Parses RPG content on the reload executor and publishes a fully built registry in the
+ * apply stage, so readers never observe a partially loaded registry.
+ */
+public class RpgDataLoader implements SimpleResourceReloadListener<RpgDataRegistry> {
 
     private static final String DATA_PREFIX = "rpg/";
+    private static final int FILES_PER_TASK = 32;
 
     @Override
     public Identifier getFabricId() {
@@ -25,53 +39,187 @@ public class RpgDataLoader implements SimpleSynchronousResourceReloadListener {
     }
 
     @Override
-    public void onResourceManagerReload(ResourceManager manager) {
-        RpgDataRegistry registry = RpgDataRegistry.getInstance();
-        registry.clear();
-
+    public CompletableFuture<RpgDataRegistry> load(ResourceManager manager, Executor executor) {
+        long start = System.nanoTime();
         Mcrpg.LOGGER.info("Loading RPG data...");
 
-        int characters = loadAll(manager, DATA_PREFIX + "characters", CharacterData.CODEC, (id, data) -> registry.registerCharacter(data));
-        int locations = loadAll(manager, DATA_PREFIX + "locations", LocationData.CODEC, (id, data) -> registry.registerLocation(data));
-        int factions = loadAll(manager, DATA_PREFIX + "factions", FactionData.CODEC, (id, data) -> registry.registerFaction(data));
-        int quests = loadAll(manager, DATA_PREFIX + "quests", QuestData.CODEC, (id, data) -> registry.registerQuest(data));
-        int dialogs = loadAll(manager, DATA_PREFIX + "dialogs", DialogTreeData.CODEC, (id, data) -> registry.registerDialog(data));
+        CompletableFuture<SourceSet> characters = readSources(manager, "characters", executor);
+        CompletableFuture<SourceSet> locations = readSources(manager, "locations", executor);
+        CompletableFuture<SourceSet> factions = readSources(manager, "factions", executor);
+        CompletableFuture<SourceSet> quests = readSources(manager, "quests", executor);
+        CompletableFuture<SourceSet> dialogs = readSources(manager, "dialogs", executor);
+
+        return CompletableFuture.allOf(characters, locations, factions, quests, dialogs).thenComposeAsync(v -> {
+            List<SourceSet> sources = List.of(characters.join(), locations.join(), factions.join(), quests.join(), dialogs.join());
+            String hash = RpgContentCache.hash(sources);
+
+            if (RpgContentCache.isEnabled()) {
+                RpgDataRegistry cached = RpgContentCache.read(RpgContentCache.getCachePath(), hash);
+                if (cached != null) {
+                    Mcrpg.LOGGER.info("Loaded RPG data from content cache in {} ms", millisSince(start));
+                    return CompletableFuture.completedFuture(finish(cached));
+                }
+            }
+
+            return parseAll(characters.join(), locations.join(), factions.join(), quests.join(), dialogs.join(), executor)
+                .thenApply(registry -> {
+                    if (RpgContentCache.isEnabled()) {
+                        RpgContentCache.write(RpgContentCache.getCachePath(), hash, registry);
+                    }
+                    Mcrpg.LOGGER.info("RPG data loaded in {} ms", millisSince(start));
+                    return finish(registry);
+                });
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> apply(RpgDataRegistry registry, ResourceManager manager, Executor executor) {
+        return CompletableFuture.runAsync(() -> RpgDataRegistry.publish(registry), executor);
+    }
+
+    private CompletableFuture<RpgDataRegistry> parseAll(SourceSet characterSources, SourceSet locationSources,
+                                                        SourceSet factionSources, SourceSet questSources,
+                                                        SourceSet dialogSources, Executor executor) {
+        CompletableFuture<LoadResult<CharacterData>> characters = parseAll(characterSources, CharacterData.CODEC, executor);
+        CompletableFuture<LoadResult<LocationData>> locations = parseAll(locationSources, LocationData.CODEC, executor);
+        CompletableFuture<LoadResult<FactionData>> factions = parseAll(factionSources, FactionData.CODEC, executor);
+        CompletableFuture<LoadResult<QuestData>> quests = parseAll(questSources, QuestData.CODEC, executor);
+        CompletableFuture<LoadResult<DialogTreeData>> dialogs = parseAll(dialogSources, DialogTreeData.CODEC, executor);
+
+        return CompletableFuture.allOf(characters, locations, factions, quests, dialogs).thenApplyAsync(v -> {
+            long buildStart = System.nanoTime();
+            RpgDataRegistry.Builder builder = RpgDataRegistry.builder();
+            characters.join().values().forEach(builder::character);
+            locations.join().values().forEach(builder::location);
+            factions.join().values().forEach(builder::faction);
+            quests.join().values().forEach(builder::quest);
+            dialogs.join().values().forEach(builder::dialog);
+            RpgDataRegistry registry = builder.build();
+
+            Mcrpg.LOGGER.info("RPG data timings (read + parse): characters {} + {} ms, locations {} + {} ms, factions {} + {} ms, quests {} + {} ms, dialogs {} + {} ms, build {} ms",
+                characterSources.millis(), characters.join().millis(), locationSources.millis(), locations.join().millis(),
+                factionSources.millis(), factions.join().millis(), questSources.millis(), quests.join().millis(),
+                dialogSources.millis(), dialogs.join().millis(), millisSince(buildStart));
+            return registry;
+        }, executor);
+    }
+
+    /**
+     * Loads content straight from a directory laid out like {@code data/mc-rpg/rpg/} and
+     * publishes it, for tools that run without a server or resource manager.
+     */
+    public static RpgDataRegistry loadDirectory(Path root) throws IOException {
+        RpgDataLoader loader = new RpgDataLoader();
+        Executor direct = Runnable::run;
+        RpgDataRegistry registry = loader.finish(loader.parseAll(
+            readDirectory(root, "characters"), readDirectory(root, "locations"), readDirectory(root, "factions"),
+            readDirectory(root, "quests"), readDirectory(root, "dialogs"), direct).join());
+        RpgDataRegistry.publish(registry);
+        return registry;
+    }
+
+    private static SourceSet readDirectory(Path root, String category) throws IOException {
+        long start = System.nanoTime();
+        List<SourceFile> files = new ArrayList<>();
+
+        Path directory = root.resolve(category);
+        if (Files.isDirectory(directory)) {
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(directory)) {
+                paths = walk.filter(path -> path.toString().endsWith(".json")).toList();
+            }
+            for (Path path : paths) {
+                String relative = root.relativize(path).toString().replace('\\', '/');
+                files.add(new SourceFile(Identifier.fromNamespaceAndPath(Mcrpg.MOD_ID, DATA_PREFIX + relative), Files.readAllBytes(path)));
+            }
+        }
 
+        files.sort(Comparator.comparing(file -> file.id().toString()));
+        return new SourceSet(category, files, millisSince(start));
+    }
+
+    private RpgDataRegistry finish(RpgDataRegistry registry) {
         Mcrpg.LOGGER.info("Loaded RPG data: {} characters, {} locations, {} factions, {} quests, {} dialogs",
-            characters, locations, factions, quests, dialogs);
+            registry.getAllCharacters().size(), registry.getAllLocations().size(), registry.getAllFactions().size(),
+            registry.getAllQuests().size(), registry.getAllDialogs().size());
+
+        for (String error : registry.getCompileErrors()) {
+            Mcrpg.LOGGER.error("Invalid RPG expression: {}", error);
+        }
 
         registry.validate();
+        return registry;
+    }
+
+    private CompletableFuture<SourceSet> readSources(ResourceManager manager, String category, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            List<SourceFile> files = new ArrayList<>();
+
+            Map<Identifier, Resource> resources = manager.listResources(DATA_PREFIX + category, id -> id.getPath().endsWith(".json"));
+            for (Map.Entry<Identifier, Resource> entry : resources.entrySet()) {
+                Identifier resourceId = entry.getKey();
+                // Only load from our namespace
+                if (!resourceId.getNamespace().equals(Mcrpg.MOD_ID)) continue;
+
+                try (InputStream in = entry.getValue().open()) {
+                    files.add(new SourceFile(resourceId, in.readAllBytes()));
+                } catch (Exception e) {
+                    Mcrpg.LOGGER.error("Failed to load {}: {}", resourceId, e.getMessage());
+                }
+            }
+
+            // Stable order keeps the content hash independent of pack listing order
+            files.sort(Comparator.comparing(file -> file.id().toString()));
+            return new SourceSet(category, files, millisSince(start));
+        }, executor);
     }
 
-    private <T> int loadAll(ResourceManager manager, String directory, Codec<T> codec, DataConsumer<T> consumer) {
-        int count = 0;
-        Map<Identifier, Resource> resources = manager.listResources(directory, id -> id.getPath().endsWith(".json"));
+    private <T> CompletableFuture<LoadResult<T>> parseAll(SourceSet sources, Codec<T> codec, Executor executor) {
+        long start = System.nanoTime();
+        List<SourceFile> files = sources.files();
+
+        List<CompletableFuture<List<T>>> batches = new ArrayList<>();
+        for (int i = 0; i < files.size(); i += FILES_PER_TASK) {
+            List<SourceFile> batch = files.subList(i, Math.min(i + FILES_PER_TASK, files.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> parseBatch(batch, codec), executor));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<T> values = new ArrayList<>();
+            batches.forEach(batch -> values.addAll(batch.join()));
+            return new LoadResult<>(values, millisSince(start));
+        });
+    }
 
-        for (Map.Entry<Identifier, Resource> entry : resources.entrySet()) {
-            Identifier resourceId = entry.getKey();
-            // Only load from our namespace
-            if (!resourceId.getNamespace().equals(Mcrpg.MOD_ID)) continue;
+    private <T> List<T> parseBatch(List<SourceFile> batch, Codec<T> codec) {
+        List<T> values = new ArrayList<>(batch.size());
 
-            try (InputStreamReader reader = new InputStreamReader(entry.getValue().open(), StandardCharsets.UTF_8)) {
-                JsonElement json = JsonParser.parseReader(reader);
+        for (SourceFile file : batch) {
+            try {
+                JsonElement json = JsonParser.parseString(new String(file.bytes(), StandardCharsets.UTF_8));
                 var result = codec.parse(JsonOps.INSTANCE, json);
 
                 if (result.isSuccess()) {
-                    consumer.accept(resourceId.toString(), result.getOrThrow());
-                    count++;
+                    values.add(result.getOrThrow());
                 } else {
-                    Mcrpg.LOGGER.error("Failed to parse {}: {}", resourceId, result.error().orElse(null));
+                    Mcrpg.LOGGER.error("Failed to parse {}: {}", file.id(), result.error().orElse(null));
                 }
             } catch (Exception e) {
-                Mcrpg.LOGGER.error("Failed to load {}: {}", resourceId, e.getMessage());
+                Mcrpg.LOGGER.error("Failed to load {}: {}", file.id(), e.getMessage());
             }
         }
 
-        return count;
+        return values;
     }
 
-    @FunctionalInterface
-    private interface DataConsumer<T> {
-        void accept(String id, T data);
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000L;
     }
+
+    record SourceFile(Identifier id, byte[] bytes) {}
+
+    record SourceSet(String category, List<SourceFile> files, long millis) {}
+
+    private record LoadResult<T>(List<T> values, long millis) {}
 }
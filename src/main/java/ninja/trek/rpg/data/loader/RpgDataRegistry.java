@@ -2,51 +2,108 @@ package ninja.trek.rpg.data.loader;
 
 import ninja.trek.rpg.Mcrpg;
 import ninja.trek.rpg.data.*;
+import ninja.trek.rpg.data.compiled.CompiledBranch;
+import ninja.trek.rpg.data.compiled.CompiledDialogTree;
+import ninja.trek.rpg.data.compiled.CompiledQuestRequirements;
+import ninja.trek.rpg.data.compiled.RequirementCompiler;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of all loaded RPG content plus the lookups derived from it.
+ * RpgDataLoader builds a new snapshot off-thread and swaps it in atomically, so
+ * readers always see one consistent registry without locking.
+ */
+public final class RpgDataRegistry {
+
+    private static final AtomicLong NEXT_VERSION = new AtomicLong(System.currentTimeMillis());
+
+    public static final RpgDataRegistry EMPTY = new Builder().build();
+
+    private static volatile RpgDataRegistry instance = EMPTY;
+
+    private final long version;
+    private final Map<String, CharacterData> characters;
+    private final Map<String, LocationData> locations;
+    private final Map<String, FactionData> factions;
+    private final Map<String, QuestData> quests; // keyed by fullId
+    private final Map<String, DialogTreeData> dialogs;
+
+    private final Map<String, List<QuestData>> questsByFaction;
+    private final Map<String, List<QuestData>> questsByCharacter;
+    private final SymbolTable symbols;
+    private final int[][] characterIdsByQuest; // quest symbol id -> character symbol ids
+    private final QuestDependencyIndex dependencyIndex;
+    private final Map<String, CompiledQuestRequirements> compiledRequirements; // keyed by fullId
+    private final Map<String, Map<String, CompiledBranch>> compiledBranches; // fullId -> branch id -> compiled
+    private final Map<String, CompiledDialogTree> compiledDialogs;
+    private final List<String> compileErrors;
+
+    private RpgDataRegistry(Builder builder) {
+        this.version = NEXT_VERSION.incrementAndGet();
+        this.characters = Collections.unmodifiableMap(new HashMap<>(builder.characters));
+        this.locations = Collections.unmodifiableMap(new HashMap<>(builder.locations));
+        this.factions = Collections.unmodifiableMap(new HashMap<>(builder.factions));
+        this.quests = Collections.unmodifiableMap(new HashMap<>(builder.quests));
+        this.dialogs = Collections.unmodifiableMap(new HashMap<>(builder.dialogs));
+
+        Map<String, List<QuestData>> byFaction = new HashMap<>();
+        Map<String, List<QuestData>> byCharacter = new HashMap<>();
+        for (QuestData quest : quests.values()) {
+            byFaction.computeIfAbsent(quest.factionId(), k -> new ArrayList<>()).add(quest);
+            for (String charId : quest.characters()) {
+                byCharacter.computeIfAbsent(charId, k -> new ArrayList<>()).add(quest);
+            }
+        }
+        this.questsByFaction = freeze(byFaction);
+        this.questsByCharacter = freeze(byCharacter);
 
-public class RpgDataRegistry {
-
-    private static final RpgDataRegistry INSTANCE = new RpgDataRegistry();
-
-    private final Map<String, CharacterData> characters = new HashMap<>();
-    private final Map<String, LocationData> locations = new HashMap<>();
-    private final Map<String, FactionData> factions = new HashMap<>();
-    private final Map<String, QuestData> quests = new HashMap<>(); // keyed by fullId
-    private final Map<String, DialogTreeData> dialogs = new HashMap<>();
-
-    private RpgDataRegistry() {}
-
-    public static RpgDataRegistry getInstance() {
-        return INSTANCE;
-    }
-
-    public void clear() {
-        characters.clear();
-        locations.clear();
-        factions.clear();
-        quests.clear();
-        dialogs.clear();
+        this.symbols = buildSymbolTable();
+        this.characterIdsByQuest = new int[symbols.quests().size()][];
+        Arrays.fill(characterIdsByQuest, new int[0]);
+        for (QuestData quest : quests.values()) {
+            characterIdsByQuest[symbols.quests().indexOf(quest.fullId())] = quest.characters().stream()
+                .mapToInt(symbols.characters()::indexOf)
+                .distinct()
+                .toArray();
+        }
+        this.dependencyIndex = QuestDependencyIndex.build(quests.values());
+
+        RequirementCompiler compiler = new RequirementCompiler(symbols);
+        Map<String, CompiledQuestRequirements> requirements = new HashMap<>();
+        Map<String, Map<String, CompiledBranch>> branches = new HashMap<>();
+        Map<String, CompiledDialogTree> dialogGraphs = new HashMap<>();
+        compile(compiler, requirements, branches, dialogGraphs);
+        this.compiledRequirements = Collections.unmodifiableMap(requirements);
+        this.compiledBranches = Collections.unmodifiableMap(branches);
+        this.compiledDialogs = Collections.unmodifiableMap(dialogGraphs);
+        this.compileErrors = List.copyOf(compiler.getErrors());
     }
 
-    public void registerCharacter(CharacterData data) {
-        characters.put(data.id(), data);
+    public static RpgDataRegistry getInstance() {
+        return instance;
     }
 
-    public void registerLocation(LocationData data) {
-        locations.put(data.id(), data);
+    static void publish(RpgDataRegistry registry) {
+        instance = registry;
     }
 
-    public void registerFaction(FactionData data) {
-        factions.put(data.id(), data);
+    public static Builder builder() {
+        return new Builder();
     }
 
-    public void registerQuest(QuestData data) {
-        quests.put(data.fullId(), data);
+    private static Map<String, List<QuestData>> freeze(Map<String, List<QuestData>> map) {
+        Map<String, List<QuestData>> frozen = new HashMap<>();
+        map.forEach((key, list) -> frozen.put(key, List.copyOf(list)));
+        return Collections.unmodifiableMap(frozen);
     }
 
-    public void registerDialog(DialogTreeData data) {
-        dialogs.put(data.id(), data);
+    /**
+     * Unique per built registry; lets clients tell whether content they cached is still current.
+     */
+    public long getVersion() {
+        return version;
     }
 
     public CharacterData getCharacter(String id) {
@@ -89,10 +146,125 @@ public class RpgDataRegistry {
         return Collections.unmodifiableCollection(dialogs.values());
     }
 
+    public QuestDependencyIndex getDependencyIndex() {
+        return dependencyIndex;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public CompiledQuestRequirements getCompiledRequirements(String fullId) {
+        return compiledRequirements.getOrDefault(fullId, CompiledQuestRequirements.EMPTY);
+    }
+
+    /**
+     * The compiled form of one of this registry's quest branches. Every branch is compiled at
+     * build time, so a miss means the caller mixed up registries and is an error.
+     */
+    public CompiledBranch getCompiledBranch(String fullId, String branchId) {
+        CompiledBranch compiled = compiledBranches.getOrDefault(fullId, Map.of()).get(branchId);
+        if (compiled == null) {
+            throw new IllegalStateException("No compiled branch " + branchId + " for quest " + fullId);
+        }
+        return compiled;
+    }
+
+    public CompiledDialogTree getCompiledDialog(String id) {
+        return compiledDialogs.get(id);
+    }
+
+    // Malformed requirement expressions found while compiling
+    public List<String> getCompileErrors() {
+        return compileErrors;
+    }
+
+    private void compile(RequirementCompiler compiler,
+                         Map<String, CompiledQuestRequirements> requirements,
+                         Map<String, Map<String, CompiledBranch>> branches,
+                         Map<String, CompiledDialogTree> dialogGraphs) {
+        for (QuestData quest : quests.values()) {
+            requirements.put(quest.fullId(), compiler.compile("Quest " + quest.fullId(), quest.requirements()));
+            Map<String, CompiledBranch> compiled = new HashMap<>();
+            for (QuestBranch branch : quest.branches()) {
+                compiled.put(branch.id(), compiler.compile("Quest " + quest.fullId() + " branch " + branch.id(), branch));
+            }
+            branches.put(quest.fullId(), Collections.unmodifiableMap(compiled));
+        }
+
+        for (DialogTreeData dialog : dialogs.values()) {
+            dialogGraphs.put(dialog.id(), compiler.compile(dialog));
+        }
+    }
+
+    private SymbolTable buildSymbolTable() {
+        SymbolTable.Builder builder = new SymbolTable.Builder();
+
+        characters.values().forEach(c -> builder.character(c.id()).location(c.homeLocation()));
+        locations.values().forEach(l -> builder.location(l.id()));
+        for (FactionData faction : factions.values()) {
+            builder.faction(faction.id());
+            faction.stats().keySet().forEach(builder::stat);
+            faction.members().forEach(builder::character);
+        }
+
+        for (QuestData quest : quests.values()) {
+            builder.quest(quest.fullId()).faction(quest.factionId()).location(quest.location());
+            quest.characters().forEach(builder::character);
+
+            QuestRequirements requirements = quest.requirements();
+            requirements.questsCompleted().forEach(builder::quest);
+            requirements.factionStats().keySet().forEach(builder::factionStat);
+            requirements.globalVars().keySet().forEach(builder::globalVar);
+
+            for (QuestBranch branch : quest.branches()) {
+                QuestOutcomes outcomes = branch.outcomes();
+                outcomes.factionStats().keySet().forEach(builder::factionStat);
+                outcomes.globalVars().keySet().forEach(builder::globalVar);
+                outcomes.locationStates().keySet().forEach(builder::location);
+                outcomes.characterExtras().forEach(e -> builder.character(e.character()));
+                outcomes.moveCharacters().forEach((charId, locId) -> builder.character(charId).location(locId));
+                outcomes.unlocks().forEach(builder::quest);
+                outcomes.triggers().forEach(builder::quest);
+                outcomes.blocks().forEach(builder::quest);
+                outcomes.unlockFactions().forEach(builder::faction);
+            }
+        }
+
+        for (DialogTreeData dialog : dialogs.values()) {
+            for (DialogNode node : dialog.nodes().values()) {
+                builder.character(node.speaker());
+                for (DialogResponse response : node.responses()) {
+                    response.condition().ifPresent(condition -> {
+                        condition.questCompleted().ifPresent(builder::quest);
+                        condition.factionStat().ifPresent(expr -> builder.factionStat(expr.trim().split("\\s+", 2)[0]));
+                        condition.globalVar().ifPresent(builder::globalVar);
+                    });
+                }
+                node.outcome().ifPresent(outcome -> {
+                    outcome.factionStats().keySet().forEach(builder::factionStat);
+                    outcome.globalVars().keySet().forEach(builder::globalVar);
+                });
+            }
+        }
+
+        return builder.build();
+    }
+
     public List<QuestData> getQuestsForFaction(String factionId) {
-        return quests.values().stream()
-            .filter(q -> q.factionId().equals(factionId))
-            .toList();
+        return questsByFaction.getOrDefault(factionId, List.of());
+    }
+
+    public List<QuestData> getQuestsForCharacter(String characterId) {
+        return questsByCharacter.getOrDefault(characterId, List.of());
+    }
+
+    /**
+     * Symbol ids of the characters involved in a quest, by quest symbol id. Empty for quests
+     * only referenced by requirements.
+     */
+    public int[] getCharacterIdsForQuest(int questId) {
+        return characterIdsByQuest[questId];
     }
 
     public void validate() {
@@ -173,4 +345,42 @@ public class RpgDataRegistry {
             Mcrpg.LOGGER.warn("RPG data validation completed with {} warning(s).", warnings);
         }
     }
+
+    public static class Builder {
+
+        private final Map<String, CharacterData> characters = new HashMap<>();
+        private final Map<String, LocationData> locations = new HashMap<>();
+        private final Map<String, FactionData> factions = new HashMap<>();
+        private final Map<String, QuestData> quests = new HashMap<>();
+        private final Map<String, DialogTreeData> dialogs = new HashMap<>();
+
+        public Builder character(CharacterData data) {
+            characters.put(data.id(), data);
+            return this;
+        }
+
+        public Builder location(LocationData data) {
+            locations.put(data.id(), data);
+            return this;
+        }
+
+        public Builder faction(FactionData data) {
+            factions.put(data.id(), data);
+            return this;
+        }
+
+        public Builder quest(QuestData data) {
+            quests.put(data.fullId(), data);
+            return this;
+        }
+
+        public Builder dialog(DialogTreeData data) {
+            dialogs.put(data.id(), data);
+            return this;
+        }
+
+        public RpgDataRegistry build() {
+            return new RpgDataRegistry(this);
+        }
+    }
 }
@@ -0,0 +1,157 @@
+package ninja.trek.rpg.data.loader;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dense int ids for every quest, faction, stat, location, character and global var
+ * known to a data load. Immutable once built; a reload produces a new table.
+ */
+public class SymbolTable {
+
+    public static final SymbolTable EMPTY = new Builder().build();
+
+    private final Symbols quests;
+    private final Symbols factions;
+    private final Symbols stats;
+    private final Symbols locations;
+    private final Symbols characters;
+    private final Symbols globalVars;
+
+    private SymbolTable(Builder builder) {
+        this.quests = builder.quests.build();
+        this.factions = builder.factions.build();
+        this.stats = builder.stats.build();
+        this.locations = builder.locations.build();
+        this.characters = builder.characters.build();
+        this.globalVars = builder.globalVars.build();
+    }
+
+    public Symbols quests() {
+        return quests;
+    }
+
+    public Symbols factions() {
+        return factions;
+    }
+
+    public Symbols stats() {
+        return stats;
+    }
+
+    public Symbols locations() {
+        return locations;
+    }
+
+    public Symbols characters() {
+        return characters;
+    }
+
+    public Symbols globalVars() {
+        return globalVars;
+    }
+
+    public static class Symbols {
+
+        public static final int MISSING = -1;
+
+        private final Object2IntOpenHashMap<String> ids;
+        private final String[] names;
+
+        private Symbols(Object2IntOpenHashMap<String> ids, String[] names) {
+            this.ids = ids;
+            this.names = names;
+        }
+
+        public int indexOf(String name) {
+            return ids.getInt(name);
+        }
+
+        public String nameOf(int index) {
+            return names[index];
+        }
+
+        public int size() {
+            return names.length;
+        }
+    }
+
+    public static class Builder {
+
+        private final SymbolsBuilder quests = new SymbolsBuilder();
+        private final SymbolsBuilder factions = new SymbolsBuilder();
+        private final SymbolsBuilder stats = new SymbolsBuilder();
+        private final SymbolsBuilder locations = new SymbolsBuilder();
+        private final SymbolsBuilder characters = new SymbolsBuilder();
+        private final SymbolsBuilder globalVars = new SymbolsBuilder();
+
+        public Builder quest(String fullId) {
+            quests.add(fullId);
+            return this;
+        }
+
+        public Builder faction(String factionId) {
+            factions.add(factionId);
+            return this;
+        }
+
+        public Builder stat(String stat) {
+            stats.add(stat);
+            return this;
+        }
+
+        // "faction.stat" keys; malformed keys are skipped here and reported by the compiler
+        public Builder factionStat(String key) {
+            int dot = key.indexOf('.');
+            if (dot > 0 && dot < key.length() - 1) {
+                factions.add(key.substring(0, dot));
+                stats.add(key.substring(dot + 1));
+            }
+            return this;
+        }
+
+        public Builder location(String locationId) {
+            locations.add(locationId);
+            return this;
+        }
+
+        public Builder character(String characterId) {
+            characters.add(characterId);
+            return this;
+        }
+
+        public Builder globalVar(String key) {
+            globalVars.add(key);
+            return this;
+        }
+
+        public SymbolTable build() {
+            return new SymbolTable(this);
+        }
+    }
+
+    private static class SymbolsBuilder {
+
+        private final Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        SymbolsBuilder() {
+            ids.defaultReturnValue(Symbols.MISSING);
+        }
+
+        void add(String name) {
+            if (name == null || name.isEmpty() || ids.containsKey(name)) return;
+            ids.put(name, names.size());
+            names.add(name);
+        }
+
+        Symbols build() {
+            Object2IntOpenHashMap<String> copy = new Object2IntOpenHashMap<>(ids);
+            copy.defaultReturnValue(Symbols.MISSING);
+            copy.trim();
+            return new Symbols(copy, names.toArray(new String[0]));
+        }
+    }
+}
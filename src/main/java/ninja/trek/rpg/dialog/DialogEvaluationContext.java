@@ -0,0 +1,55 @@
+package ninja.trek.rpg.dialog;
+
+import net.minecraft.server.level.ServerPlayer;
+import ninja.trek.rpg.data.compiled.CompiledDialogCondition;
+import ninja.trek.rpg.data.compiled.ItemCheck;
+import ninja.trek.rpg.quest.InventoryItemIndex;
+import ninja.trek.rpg.state.RpgWorldState;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What response conditions need while one dialog node is rendered: the player's world state,
+ * looked up once, and the results of conditions already evaluated. Item counts come from the
+ * player's {@link InventoryItemIndex}. Discard it after the render; it does not see later
+ * changes.
+ */
+public class DialogEvaluationContext {
+
+    private final ServerPlayer player;
+    private final RpgWorldState state;
+    private final Map<CompiledDialogCondition, Boolean> results = new HashMap<>(); // records, so equal conditions share a result
+
+    public DialogEvaluationContext(ServerPlayer player) {
+        this(player, RpgWorldState.get(player));
+    }
+
+    /**
+     * For callers that already have the player's state. Only item checks use the player.
+     */
+    public DialogEvaluationContext(ServerPlayer player, RpgWorldState state) {
+        this.player = player;
+        this.state = state;
+    }
+
+    public ServerPlayer getPlayer() {
+        return player;
+    }
+
+    public RpgWorldState getState() {
+        return state;
+    }
+
+    Boolean getCachedResult(CompiledDialogCondition condition) {
+        return results.get(condition);
+    }
+
+    void cacheResult(CompiledDialogCondition condition, boolean result) {
+        results.put(condition, result);
+    }
+
+    public int countItem(ItemCheck check) {
+        return InventoryItemIndex.of(player).count(check.item());
+    }
+}
@@ -4,6 +4,7 @@ import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.server.level.ServerPlayer;
 import ninja.trek.rpg.Mcrpg;
 import ninja.trek.rpg.data.*;
+import ninja.trek.rpg.data.compiled.CompiledDialogTree;
 import ninja.trek.rpg.data.loader.RpgDataRegistry;
 import ninja.trek.rpg.entity.NpcEntity;
 import ninja.trek.rpg.network.payloads.CloseDialogPayload;
@@ -17,30 +18,13 @@ import java.util.*;
 
 public class DialogManager {
 
-    private static final Map<UUID, DialogSession> activeSessions = new HashMap<>();
-
     public static void handleNpcInteraction(ServerPlayer player, String characterId, NpcEntity npc) {
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-
-        // Find an active quest for this character
-        QuestData activeQuest = null;
-        for (QuestData quest : registry.getAllQuests()) {
-            if (quest.characters().contains(characterId) && state.getQuestState(quest.fullId()) == QuestState.ACTIVE) {
-                activeQuest = quest;
-                break;
-            }
-        }
+        RpgWorldState state = RpgWorldState.get(player);
 
-        // If no active quest, check for available quests
-        if (activeQuest == null) {
-            for (QuestData quest : registry.getAllQuests()) {
-                if (quest.characters().contains(characterId) && state.getQuestState(quest.fullId()) == QuestState.AVAILABLE) {
-                    activeQuest = quest;
-                    break;
-                }
-            }
-        }
+        // Active quest for this character, otherwise an available one
+        String questId = state.getInteractionQuest(characterId);
+        QuestData activeQuest = questId != null ? registry.getQuest(questId) : null;
 
         if (activeQuest == null || activeQuest.dialogId().isEmpty()) {
             // No quest dialog available for this character
@@ -50,56 +34,66 @@ public class DialogManager {
             return;
         }
 
-        DialogTreeData dialogTree = registry.getDialog(activeQuest.dialogId());
-        if (dialogTree == null) {
-            Mcrpg.LOGGER.error("Dialog tree not found: {}", activeQuest.dialogId());
+        CompiledDialogTree dialogTree = registry.getCompiledDialog(activeQuest.dialogId());
+        if (dialogTree == null || dialogTree.startNode() == CompiledDialogTree.MISSING) {
+            Mcrpg.LOGGER.error("Dialog tree not found or has no start node: {}", activeQuest.dialogId());
+            return;
+        }
+
+        // Start dialog session
+        DialogSession session = new DialogSession(dialogTree, activeQuest.fullId());
+        if (!DialogSessionStore.open(player, session)) {
+            player.sendSystemMessage(net.minecraft.network.chat.Component.literal("Too many conversations are in progress. Try again shortly."));
             return;
         }
 
         // Auto-accept available quest
         if (state.getQuestState(activeQuest.fullId()) == QuestState.AVAILABLE) {
-            QuestManager.acceptQuest(player.level().getServer(), activeQuest.fullId());
+            QuestManager.acceptQuest(player.level().getServer(), state, activeQuest.fullId());
         }
 
-        // Start dialog session
-        DialogSession session = new DialogSession(dialogTree, activeQuest.fullId());
-        activeSessions.put(player.getUUID(), session);
+        // Outcomes apply once, on entering a node: here for the start node, in
+        // handleDialogResponse for every later one
+        CompiledDialogTree.Node start = dialogTree.node(dialogTree.startNode());
+        if (start.outcome() != null) {
+            DialogOutcomeHandler.apply(start.outcome(), player, session);
+        }
 
         sendDialogNode(player, session);
     }
 
     public static void handleDialogResponse(ServerPlayer player, int responseIndex) {
-        DialogSession session = activeSessions.get(player.getUUID());
+        DialogSession session = DialogSessionStore.get(player);
         if (session == null) {
             Mcrpg.LOGGER.warn("No active dialog session for player {}", player.getName().getString());
             return;
         }
 
-        List<DialogResponse> visibleResponses = session.getVisibleResponses();
-        if (visibleResponses == null || responseIndex < 0 || responseIndex >= visibleResponses.size()) {
+        int responseId = session.getVisibleResponse(responseIndex);
+        if (responseId < 0) {
             Mcrpg.LOGGER.warn("Invalid response index {} for player {}", responseIndex, player.getName().getString());
             return;
         }
 
-        DialogResponse response = visibleResponses.get(responseIndex);
-        String nextNodeId = response.nextNode();
-
-        DialogNode nextNode = session.getTree().nodes().get(nextNodeId);
+        CompiledDialogTree tree = session.getTree();
+        CompiledDialogTree.Response response = tree.node(session.getCurrentNode()).responses()[responseId];
+        CompiledDialogTree.Node nextNode = tree.node(response.target());
         if (nextNode == null) {
-            Mcrpg.LOGGER.error("Next node not found: {}", nextNodeId);
+            // Dangling next_node, already reported at load
+            Mcrpg.LOGGER.error("Dialog {} has no target for response '{}'", tree.id(), response.text());
             endDialog(player);
             return;
         }
 
-        session.setCurrentNodeId(nextNodeId);
+        session.setCurrentNode(response.target());
 
         // Apply outcome if present
-        if (nextNode.outcome().isPresent()) {
-            DialogOutcomeHandler.apply(nextNode.outcome().get(), player, session);
+        if (nextNode.outcome() != null) {
+            DialogOutcomeHandler.apply(nextNode.outcome(), player, session);
         }
 
         // If no responses, this is an end node
-        if (nextNode.responses().isEmpty()) {
+        if (nextNode.responses().length == 0) {
             endDialog(player);
             return;
         }
@@ -108,15 +102,30 @@ public class DialogManager {
     }
 
     public static void endDialog(ServerPlayer player) {
-        DialogSession session = activeSessions.remove(player.getUUID());
+        DialogSession session = DialogSessionStore.remove(player.getUUID());
         if (session != null && session.getSelectedBranch() != null) {
-            QuestManager.completeQuest(player.level().getServer(), session.getQuestFullId(), session.getSelectedBranch());
+            QuestManager.completeQuest(player.level().getServer(), RpgWorldState.get(player),
+                session.getQuestFullId(), session.getSelectedBranch());
         }
         ServerPlayNetworking.send(player, new CloseDialogPayload());
     }
 
+    /**
+     * Bit mask of the node's responses whose conditions pass; bit i is response i.
+     */
+    public static long getVisibleResponses(CompiledDialogTree.Node node, DialogEvaluationContext context) {
+        long visible = 0;
+        CompiledDialogTree.Response[] responses = node.responses();
+        for (int i = 0; i < responses.length; i++) {
+            if (responses[i].condition() == null || DialogConditionEvaluator.evaluate(responses[i].condition(), context)) {
+                visible |= 1L << i;
+            }
+        }
+        return visible;
+    }
+
     private static void sendDialogNode(ServerPlayer player, DialogSession session) {
-        DialogNode node = session.getTree().nodes().get(session.getCurrentNodeId());
+        CompiledDialogTree.Node node = session.getTree().node(session.getCurrentNode());
         if (node == null) {
             endDialog(player);
             return;
@@ -124,17 +133,14 @@ public class DialogManager {
 
         // Evaluate conditions for responses
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
-        List<DialogResponse> visible = new ArrayList<>();
-        List<String> responseTexts = new ArrayList<>();
-
-        for (DialogResponse response : node.responses()) {
-            if (response.condition().isPresent()) {
-                if (!DialogConditionEvaluator.evaluate(response.condition().get(), player)) {
-                    continue;
-                }
+        long visible = getVisibleResponses(node, new DialogEvaluationContext(player));
+        List<String> responseTexts = new ArrayList<>(Long.bitCount(visible));
+
+        CompiledDialogTree.Response[] responses = node.responses();
+        for (int i = 0; i < responses.length; i++) {
+            if ((visible & 1L << i) != 0) {
+                responseTexts.add(responses[i].text());
             }
-            visible.add(response);
-            responseTexts.add(response.text());
         }
 
         session.setVisibleResponses(visible);
@@ -143,13 +149,8 @@ public class DialogManager {
         CharacterData charData = registry.getCharacter(node.speaker());
         String speakerName = charData != null ? charData.name() : node.speaker();
 
-        // Apply outcome if present on entry node
-        if (node.outcome().isPresent()) {
-            DialogOutcomeHandler.apply(node.outcome().get(), player, session);
-        }
-
         // Check if this is the start of dialog (open) or continuation (update)
-        if (session.getCurrentNodeId().equals(session.getTree().startNode())) {
+        if (session.getCurrentNode() == session.getTree().startNode()) {
             ServerPlayNetworking.send(player, new OpenDialogPayload(
                 speakerName, node.text(), responseTexts, session.getQuestFullId()
             ));
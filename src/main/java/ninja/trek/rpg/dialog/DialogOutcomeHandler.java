@@ -1,61 +1,46 @@
 package ninja.trek.rpg.dialog;
 
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.Identifier;
+import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
 import ninja.trek.rpg.data.DialogOutcome;
+import ninja.trek.rpg.data.compiled.CompiledDialogOutcome;
+import ninja.trek.rpg.data.compiled.StatDelta;
+import ninja.trek.rpg.quest.InventoryTransaction;
+import ninja.trek.rpg.quest.OutcomeTransaction;
+import ninja.trek.rpg.quest.QuestManager;
 import ninja.trek.rpg.state.RpgWorldState;
 
 import java.util.Map;
 
 public class DialogOutcomeHandler {
 
-    public static void apply(DialogOutcome outcome, ServerPlayer player, DialogSession session) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
+    /**
+     * Applies a node's outcome. Items are exchanged first; if the player can't pay for a take,
+     * nothing else is applied either and the player is told.
+     */
+    public static void apply(CompiledDialogOutcome compiled, ServerPlayer player, DialogSession session) {
+        InventoryTransaction.Result result = new InventoryTransaction(player)
+            .take(compiled.takeItems())
+            .give(compiled.giveItems())
+            .commit();
+        if (result == InventoryTransaction.Result.INSUFFICIENT_ITEMS) {
+            player.sendSystemMessage(Component.literal("You don't have the items needed for that."));
+            return;
+        }
+
+        DialogOutcome outcome = compiled.outcome();
 
         // Select branch
         outcome.selectBranch().ifPresent(session::setSelectedBranch);
 
-        // Faction stats
-        for (Map.Entry<String, Integer> entry : outcome.factionStats().entrySet()) {
-            String key = entry.getKey();
-            String[] parts = key.split("\\.", 2);
-            if (parts.length == 2) {
-                state.addFactionStat(parts[0], parts[1], entry.getValue());
-            }
+        // Stats and vars commit together, so any quests they unlock reach the party in one sync
+        OutcomeTransaction tx = QuestManager.transaction(player.level().getServer(), RpgWorldState.get(player));
+        for (StatDelta delta : compiled.factionStats()) {
+            tx.addFactionStat(delta.stat().factionId(), delta.stat().stat(), delta.delta());
         }
-
-        // Global vars
         for (Map.Entry<String, Boolean> entry : outcome.globalVars().entrySet()) {
-            state.setGlobalVar(entry.getKey(), entry.getValue());
-        }
-
-        // Give items
-        for (Map.Entry<String, Integer> entry : outcome.giveItems().entrySet()) {
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(entry.getKey()));
-            if (item != null) {
-                ItemStack stack = new ItemStack(item, entry.getValue());
-                player.getInventory().add(stack);
-            }
-        }
-
-        // Take items
-        for (Map.Entry<String, Integer> entry : outcome.takeItems().entrySet()) {
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(entry.getKey()));
-            if (item != null) {
-                int remaining = entry.getValue();
-                int inventorySize = player.getInventory().getContainerSize();
-                for (int i = 0; i < inventorySize && remaining > 0; i++) {
-                    ItemStack stack = player.getInventory().getItem(i);
-                    if (stack.is(item)) {
-                        int toRemove = Math.min(remaining, stack.getCount());
-                        stack.shrink(toRemove);
-                        remaining -= toRemove;
-                    }
-                }
-            }
+            tx.setGlobalVar(entry.getKey(), entry.getValue());
         }
+        tx.commit();
     }
 }
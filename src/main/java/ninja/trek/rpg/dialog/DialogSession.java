@@ -1,25 +1,23 @@
 package ninja.trek.rpg.dialog;
 
-import ninja.trek.rpg.data.DialogResponse;
-import ninja.trek.rpg.data.DialogTreeData;
-
-import java.util.List;
+import ninja.trek.rpg.data.compiled.CompiledDialogTree;
 
 public class DialogSession {
 
-    private final DialogTreeData tree;
+    private final CompiledDialogTree tree;
     private final String questFullId;
-    private String currentNodeId;
+    private int currentNode;
     private String selectedBranch;
-    private List<DialogResponse> visibleResponses;
+    private long visibleResponses; // bit i set = response i of the current node is shown
+    private long lastActiveTick;
 
-    public DialogSession(DialogTreeData tree, String questFullId) {
+    public DialogSession(CompiledDialogTree tree, String questFullId) {
         this.tree = tree;
         this.questFullId = questFullId;
-        this.currentNodeId = tree.startNode();
+        this.currentNode = tree.startNode();
     }
 
-    public DialogTreeData getTree() {
+    public CompiledDialogTree getTree() {
         return tree;
     }
 
@@ -27,12 +25,12 @@ public class DialogSession {
         return questFullId;
     }
 
-    public String getCurrentNodeId() {
-        return currentNodeId;
+    public int getCurrentNode() {
+        return currentNode;
     }
 
-    public void setCurrentNodeId(String nodeId) {
-        this.currentNodeId = nodeId;
+    public void setCurrentNode(int node) {
+        this.currentNode = node;
     }
 
     public String getSelectedBranch() {
@@ -43,11 +41,29 @@ public class DialogSession {
         this.selectedBranch = branch;
     }
 
-    public List<DialogResponse> getVisibleResponses() {
-        return visibleResponses;
+    public long getLastActiveTick() {
+        return lastActiveTick;
+    }
+
+    public void touch(long tick) {
+        this.lastActiveTick = tick;
     }
 
-    public void setVisibleResponses(List<DialogResponse> responses) {
-        this.visibleResponses = responses;
+    public void setVisibleResponses(long mask) {
+        this.visibleResponses = mask;
+    }
+
+    /**
+     * Maps an index into the responses the player was shown back to the node's response
+     * index, or -1 if there is no such visible response.
+     */
+    public int getVisibleResponse(int visibleIndex) {
+        if (visibleIndex < 0 || visibleIndex >= Long.bitCount(visibleResponses)) return -1;
+
+        long mask = visibleResponses;
+        for (int i = 0; i < visibleIndex; i++) {
+            mask &= mask - 1; // drop lowest set bit
+        }
+        return Long.numberOfTrailingZeros(mask);
     }
 }
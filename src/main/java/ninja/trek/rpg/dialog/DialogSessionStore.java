@@ -0,0 +1,119 @@
+package ninja.trek.rpg.dialog;
+
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.network.payloads.CloseDialogPayload;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Open dialog sessions, one per player. Sessions end when the player disconnects, changes
+ * dimension or stays idle too long, and the number open at once is capped. Idle timeout and
+ * cap can be set with the {@code mcrpg.dialog.idleTicks} and {@code mcrpg.dialog.maxSessions}
+ * system properties.
+ * Server thread only: packet handlers hop onto it before touching dialogs, which is what
+ * keeps the size check and the insert in {@link #open} together.
+ */
+public class DialogSessionStore {
+
+    private static final int IDLE_TICKS = Integer.getInteger("mcrpg.dialog.idleTicks", 6000); // 5 minutes
+    private static final int MAX_SESSIONS = Integer.getInteger("mcrpg.dialog.maxSessions", 512);
+    private static final int SWEEP_INTERVAL = 20;
+
+    private static final Map<UUID, DialogSession> sessions = new HashMap<>();
+
+    private static long opened;
+    private static long closed;
+    private static long expired;
+    private static long rejected;
+
+    public record Metrics(int active, long opened, long closed, long expired, long rejected) {}
+
+    public static void register() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> remove(handler.getPlayer().getUUID()));
+
+        ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) -> {
+            if (remove(player.getUUID()) != null) {
+                ServerPlayNetworking.send(player, new CloseDialogPayload());
+            }
+        });
+
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTickCount() % SWEEP_INTERVAL == 0) {
+                expireIdle(server);
+            }
+        });
+    }
+
+    /**
+     * Starts a session for the player, replacing any they already had. Returns false if the
+     * store is full.
+     */
+    public static boolean open(ServerPlayer player, DialogSession session) {
+        session.touch(player.level().getServer().getTickCount());
+        UUID playerId = player.getUUID();
+        if (!sessions.containsKey(playerId) && sessions.size() >= MAX_SESSIONS) {
+            rejected++;
+            return false;
+        }
+
+        if (sessions.put(playerId, session) != null) {
+            closed++;
+        }
+        opened++;
+        return true;
+    }
+
+    /**
+     * The player's session, marked as active now; null if they have none.
+     */
+    public static DialogSession get(ServerPlayer player) {
+        DialogSession session = sessions.get(player.getUUID());
+        if (session != null) {
+            session.touch(player.level().getServer().getTickCount());
+        }
+        return session;
+    }
+
+    public static DialogSession remove(UUID playerId) {
+        DialogSession session = sessions.remove(playerId);
+        if (session != null) {
+            closed++;
+        }
+        return session;
+    }
+
+    public static Metrics getMetrics() {
+        return new Metrics(sessions.size(), opened, closed, expired, rejected);
+    }
+
+    public static void clear() {
+        sessions.clear();
+    }
+
+    private static void expireIdle(MinecraftServer server) {
+        long now = server.getTickCount();
+        Iterator<Map.Entry<UUID, DialogSession>> it = sessions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, DialogSession> entry = it.next();
+            if (now - entry.getValue().getLastActiveTick() < IDLE_TICKS) continue;
+
+            it.remove();
+            expired++;
+
+            ServerPlayer player = server.getPlayerList().getPlayer(entry.getKey());
+            if (player != null) {
+                ServerPlayNetworking.send(player, new CloseDialogPayload());
+            }
+            Mcrpg.LOGGER.debug("Dialog session for {} expired", entry.getKey());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ninja.trek.rpg.mixin;
+
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.entity.player.Player;
+import ninja.trek.rpg.quest.InventoryItemIndex;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(Inventory.class)
+public class InventoryMixin {
+	@Shadow @Final public Player player;
+
+	// Drops the cached item counts whenever a slot is replaced or cleared, or the inventory
+	// reports a change
+	@Inject(at = @At("HEAD"), method = {"setItem", "setChanged", "clearContent",
+		"removeItem(Lnet/minecraft/world/item/ItemStack;)V"})
+	private void mcrpg$invalidateItemIndex(CallbackInfo info) {
+		mcrpg$invalidate();
+	}
+
+	// Adding and removing can resize stacks in place without going through setItem
+	@Inject(at = @At("HEAD"), method = {"add", "removeItem(II)Lnet/minecraft/world/item/ItemStack;",
+		"removeItemNoUpdate", "removeFromSelected"})
+	private void mcrpg$invalidateItemIndexOnTransfer(CallbackInfoReturnable<?> info) {
+		mcrpg$invalidate();
+	}
+
+	@Unique
+	private void mcrpg$invalidate() {
+		if (player instanceof ServerPlayer serverPlayer) {
+			InventoryItemIndex.invalidate(serverPlayer);
+		}
+	}
+}
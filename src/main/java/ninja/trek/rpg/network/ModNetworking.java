@@ -17,6 +17,7 @@ public class ModNetworking {
         PayloadTypeRegistry.playS2C().register(OpenDialogPayload.TYPE, OpenDialogPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(DialogUpdatePayload.TYPE, DialogUpdatePayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(CloseDialogPayload.TYPE, CloseDialogPayload.STREAM_CODEC);
+        PayloadTypeRegistry.playS2C().register(JournalMetadataPayload.TYPE, JournalMetadataPayload.STREAM_CODEC);
         PayloadTypeRegistry.playS2C().register(SyncJournalPayload.TYPE, SyncJournalPayload.STREAM_CODEC);
 
         // Client-to-Server payloads
@@ -25,6 +26,7 @@ public class ModNetworking {
         PayloadTypeRegistry.playC2S().register(QuestActionPayload.TYPE, QuestActionPayload.STREAM_CODEC);
         PayloadTypeRegistry.playC2S().register(DialogResponsePayload.TYPE, DialogResponsePayload.STREAM_CODEC);
         PayloadTypeRegistry.playC2S().register(RequestJournalPayload.TYPE, RequestJournalPayload.STREAM_CODEC);
+        PayloadTypeRegistry.playC2S().register(AckQuestStatePayload.TYPE, AckQuestStatePayload.STREAM_CODEC);
 
         Mcrpg.LOGGER.info("Network payloads registered successfully!");
     }
@@ -0,0 +1,25 @@
+package ninja.trek.rpg.network.payloads;
+
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+import ninja.trek.rpg.Mcrpg;
+
+public record AckQuestStatePayload(long revision) implements CustomPacketPayload {
+
+    public static final Type<AckQuestStatePayload> TYPE =
+        new Type<>(Identifier.fromNamespaceAndPath(Mcrpg.MOD_ID, "ack_quest_state"));
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, AckQuestStatePayload> STREAM_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.VAR_LONG, AckQuestStatePayload::revision,
+            AckQuestStatePayload::new
+        );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
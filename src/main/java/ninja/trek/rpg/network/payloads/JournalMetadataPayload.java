@@ -0,0 +1,50 @@
+package ninja.trek.rpg.network.payloads;
+
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.Identifier;
+import ninja.trek.rpg.Mcrpg;
+
+import java.util.List;
+
+/**
+ * Static quest text for the journal, sent once per registry version. Journal pages refer to
+ * quests by their index in {@code quests}.
+ */
+public record JournalMetadataPayload(long version, List<QuestMetadata> quests) implements CustomPacketPayload {
+
+    public record QuestMetadata(
+        String questFullId,
+        String summary,
+        String factionId,
+        int level,
+        String location
+    ) {}
+
+    public static final Type<JournalMetadataPayload> TYPE =
+        new Type<>(Identifier.fromNamespaceAndPath(Mcrpg.MOD_ID, "journal_metadata"));
+
+    private static final StreamCodec<RegistryFriendlyByteBuf, QuestMetadata> METADATA_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, QuestMetadata::questFullId,
+            ByteBufCodecs.STRING_UTF8, QuestMetadata::summary,
+            ByteBufCodecs.STRING_UTF8, QuestMetadata::factionId,
+            ByteBufCodecs.VAR_INT, QuestMetadata::level,
+            ByteBufCodecs.STRING_UTF8, QuestMetadata::location,
+            QuestMetadata::new
+        );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, JournalMetadataPayload> STREAM_CODEC =
+        StreamCodec.composite(
+            ByteBufCodecs.VAR_LONG, JournalMetadataPayload::version,
+            METADATA_CODEC.apply(ByteBufCodecs.list()), JournalMetadataPayload::quests,
+            JournalMetadataPayload::new
+        );
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
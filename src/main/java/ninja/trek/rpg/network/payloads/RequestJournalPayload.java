@@ -1,18 +1,52 @@
 package ninja.trek.rpg.network.payloads;
 
+import io.netty.buffer.ByteBuf;
 import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.Identifier;
+import net.minecraft.util.ByIdMap;
 import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.state.QuestState;
 
-public record RequestJournalPayload() implements CustomPacketPayload {
+import java.util.function.IntFunction;
+
+/**
+ * Asks for one page of a journal tab. {@code metadataVersion} is the registry version of the
+ * client's cached quest metadata (0 if none); the server only resends metadata on a mismatch.
+ */
+public record RequestJournalPayload(Tab tab, int page, long metadataVersion) implements CustomPacketPayload {
+
+    public enum Tab {
+        ACTIVE,
+        AVAILABLE,
+        COMPLETED;
+
+        // Ids come from the other side, so out-of-range ones fall back to the first tab
+        private static final IntFunction<Tab> BY_ID = ByIdMap.continuous(Tab::ordinal, values(), ByIdMap.OutOfBoundsStrategy.ZERO);
+
+        public static final StreamCodec<ByteBuf, Tab> STREAM_CODEC = ByteBufCodecs.idMapper(BY_ID, Tab::ordinal);
+
+        public boolean matches(QuestState state) {
+            return switch (this) {
+                case ACTIVE -> state == QuestState.ACTIVE;
+                case AVAILABLE -> state == QuestState.AVAILABLE;
+                case COMPLETED -> state == QuestState.COMPLETED || state == QuestState.FAILED;
+            };
+        }
+    }
 
     public static final Type<RequestJournalPayload> TYPE =
         new Type<>(Identifier.fromNamespaceAndPath(Mcrpg.MOD_ID, "request_journal"));
 
     public static final StreamCodec<RegistryFriendlyByteBuf, RequestJournalPayload> STREAM_CODEC =
-        StreamCodec.unit(new RequestJournalPayload());
+        StreamCodec.composite(
+            Tab.STREAM_CODEC, RequestJournalPayload::tab,
+            ByteBufCodecs.VAR_INT, RequestJournalPayload::page,
+            ByteBufCodecs.VAR_LONG, RequestJournalPayload::metadataVersion,
+            RequestJournalPayload::new
+        );
 
     @Override
     public Type<? extends CustomPacketPayload> type() {
@@ -5,22 +5,29 @@ import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.Identifier;
+import net.minecraft.util.ByIdMap;
 import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.state.QuestState;
 
 import java.util.List;
+import java.util.function.IntFunction;
 
-public record SyncJournalPayload(List<JournalEntry> entries) implements CustomPacketPayload {
+/**
+ * One page of a journal tab. Entries only carry dynamic values; the quest text comes from
+ * the client's cached {@link JournalMetadataPayload}.
+ */
+public record SyncJournalPayload(RequestJournalPayload.Tab tab, int page, int pageCount,
+                                 List<JournalEntry> entries) implements CustomPacketPayload {
 
     public record JournalEntry(
-        String questFullId,
-        String summary,
-        String factionId,
-        int level,
-        String state,
-        String location,
+        int questIndex,
+        QuestState state,
         long timer
     ) {}
 
+    private static final IntFunction<QuestState> QUEST_STATES =
+        ByIdMap.continuous(QuestState::ordinal, QuestState.values(), ByIdMap.OutOfBoundsStrategy.ZERO);
+
     public static final Type<SyncJournalPayload> TYPE =
         new Type<>(Identifier.fromNamespaceAndPath(Mcrpg.MOD_ID, "sync_journal"));
 
@@ -29,30 +36,25 @@ public record SyncJournalPayload(List<JournalEntry> entries) implements CustomPa
             @Override
             public JournalEntry decode(RegistryFriendlyByteBuf buf) {
                 return new JournalEntry(
-                    buf.readUtf(),
-                    buf.readUtf(),
-                    buf.readUtf(),
                     buf.readVarInt(),
-                    buf.readUtf(),
-                    buf.readUtf(),
-                    buf.readLong()
+                    QUEST_STATES.apply(buf.readByte()),
+                    buf.readVarLong()
                 );
             }
 
             @Override
             public void encode(RegistryFriendlyByteBuf buf, JournalEntry entry) {
-                buf.writeUtf(entry.questFullId());
-                buf.writeUtf(entry.summary());
-                buf.writeUtf(entry.factionId());
-                buf.writeVarInt(entry.level());
-                buf.writeUtf(entry.state());
-                buf.writeUtf(entry.location());
-                buf.writeLong(entry.timer());
+                buf.writeVarInt(entry.questIndex());
+                buf.writeByte(entry.state().ordinal());
+                buf.writeVarLong(entry.timer());
             }
         };
 
     public static final StreamCodec<RegistryFriendlyByteBuf, SyncJournalPayload> STREAM_CODEC =
         StreamCodec.composite(
+            RequestJournalPayload.Tab.STREAM_CODEC, SyncJournalPayload::tab,
+            ByteBufCodecs.VAR_INT, SyncJournalPayload::page,
+            ByteBufCodecs.VAR_INT, SyncJournalPayload::pageCount,
             ENTRY_CODEC.apply(ByteBufCodecs.list()), SyncJournalPayload::entries,
             SyncJournalPayload::new
         );
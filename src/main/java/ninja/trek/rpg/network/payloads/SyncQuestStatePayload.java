@@ -9,7 +9,11 @@ import ninja.trek.rpg.Mcrpg;
 
 import java.util.List;
 
-public record SyncQuestStatePayload(List<QuestStateEntry> entries) implements CustomPacketPayload {
+/**
+ * Quest states for the receiving client. A full snapshot replaces everything the client knows;
+ * otherwise the entries are only the quests that changed up to {@code revision}.
+ */
+public record SyncQuestStatePayload(boolean fullSnapshot, long revision, List<QuestStateEntry> entries) implements CustomPacketPayload {
 
     public record QuestStateEntry(String questId, String state) {}
 
@@ -25,6 +29,8 @@ public record SyncQuestStatePayload(List<QuestStateEntry> entries) implements Cu
 
     public static final StreamCodec<RegistryFriendlyByteBuf, SyncQuestStatePayload> STREAM_CODEC =
         StreamCodec.composite(
+            ByteBufCodecs.BOOL, SyncQuestStatePayload::fullSnapshot,
+            ByteBufCodecs.VAR_LONG, SyncQuestStatePayload::revision,
             ENTRY_CODEC.apply(ByteBufCodecs.list()), SyncQuestStatePayload::entries,
             SyncQuestStatePayload::new
         );
@@ -8,7 +8,7 @@ import net.minecraft.commands.arguments.EntityArgument;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerPlayer;
 import ninja.trek.rpg.state.PartyData;
-import ninja.trek.rpg.state.RpgWorldState;
+import ninja.trek.rpg.state.PartyIndex;
 
 import java.util.UUID;
 
@@ -19,11 +19,10 @@ public class PartyCommands {
             .then(Commands.literal("info")
                 .executes(ctx -> {
                     ServerPlayer player = ctx.getSource().getPlayerOrException();
-                    RpgWorldState state = RpgWorldState.get(player.level().getServer());
-                    PartyData party = state.getParty();
+                    PartyData party = PartyIndex.get(player.level().getServer()).getPartyOf(player.getUUID());
 
-                    if (party.getLeader() == null) {
-                        ctx.getSource().sendSuccess(() -> Component.literal("No party exists yet. Enter the RPG world to create one."), false);
+                    if (party == null || party.getLeader() == null) {
+                        ctx.getSource().sendSuccess(() -> Component.literal("You are not in a party. Enter the RPG world to create one."), false);
                         return 1;
                     }
 
@@ -50,11 +49,14 @@ public class PartyCommands {
                 )
             )
             .then(Commands.literal("join")
-                .executes(ctx -> {
-                    ServerPlayer player = ctx.getSource().getPlayerOrException();
-                    PartyManager.requestJoin(player);
-                    return 1;
-                })
+                .then(Commands.argument("player", EntityArgument.player())
+                    .executes(ctx -> {
+                        ServerPlayer player = ctx.getSource().getPlayerOrException();
+                        ServerPlayer target = EntityArgument.getPlayer(ctx, "player");
+                        PartyManager.requestJoin(player, target);
+                        return 1;
+                    })
+                )
             )
             .then(Commands.literal("leave")
                 .executes(ctx -> {
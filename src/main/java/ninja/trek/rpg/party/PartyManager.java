@@ -8,8 +8,9 @@ import ninja.trek.rpg.Mcrpg;
 import ninja.trek.rpg.network.payloads.PartyActionPayload;
 import ninja.trek.rpg.network.payloads.PartyInvitePayload;
 import ninja.trek.rpg.network.payloads.SyncPartyPayload;
+import ninja.trek.rpg.quest.QuestStateSync;
 import ninja.trek.rpg.state.PartyData;
-import ninja.trek.rpg.state.RpgWorldState;
+import ninja.trek.rpg.state.PartyIndex;
 import ninja.trek.rpg.world.DimensionHelper;
 
 import java.util.UUID;
@@ -17,29 +18,23 @@ import java.util.UUID;
 public class PartyManager {
 
     public static void onPlayerEnterRpgDimension(ServerPlayer player) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(player.level().getServer());
 
-        if (party.getLeader() == null) {
-            party.setLeader(player.getUUID());
-            state.setDirty();
+        if (index.getPartyOf(player.getUUID()) == null) {
+            PartyData party = index.getOrCreatePartyOf(player.getUUID());
             player.sendSystemMessage(Component.literal("You are now the party leader!"));
-            Mcrpg.LOGGER.info("Player {} set as party leader", player.getName().getString());
+            Mcrpg.LOGGER.info("Player {} set as leader of party {}", player.getName().getString(), party.getId());
+            QuestStateSync.resync(player);
         }
 
-        if (!party.isMember(player.getUUID())) {
-            party.addMember(player.getUUID());
-            state.setDirty();
-        }
-
-        syncPartyToAll(player.level().getServer());
+        syncPartyToAll(player.level().getServer(), index.getPartyOf(player.getUUID()));
     }
 
     public static void invitePlayer(ServerPlayer leader, ServerPlayer target) {
-        RpgWorldState state = RpgWorldState.get(leader.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(leader.level().getServer());
+        PartyData party = index.getPartyOf(leader.getUUID());
 
-        if (!party.isLeader(leader.getUUID())) {
+        if (party == null || !party.isLeader(leader.getUUID())) {
             leader.sendSystemMessage(Component.literal("Only the party leader can invite players."));
             return;
         }
@@ -50,32 +45,39 @@ public class PartyManager {
         }
 
         party.addInvite(target.getUUID());
-        state.setDirty();
+        index.setDirty();
 
         leader.sendSystemMessage(Component.literal("Invited " + target.getName().getString() + " to the party."));
         ServerPlayNetworking.send(target, new PartyInvitePayload(leader.getName().getString()));
     }
 
     public static void acceptInvite(ServerPlayer player) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(player.level().getServer());
+        PartyData party = index.findPartyInviting(player.getUUID());
 
-        if (!party.getPendingInvites().contains(player.getUUID())) {
+        if (party == null) {
             player.sendSystemMessage(Component.literal("You have no pending party invite."));
             return;
         }
 
+        PartyData previous = index.getPartyOf(player.getUUID());
         party.removeInvite(player.getUUID());
-        party.addMember(player.getUUID());
-        state.setDirty();
+        index.addMember(party, player.getUUID());
 
         player.sendSystemMessage(Component.literal("You joined the party!"));
-        syncPartyToAll(player.level().getServer());
+        QuestStateSync.resync(player);
+        syncPartyToAll(player.level().getServer(), previous);
+        syncPartyToAll(player.level().getServer(), party);
     }
 
-    public static void requestJoin(ServerPlayer player) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-        PartyData party = state.getParty();
+    public static void requestJoin(ServerPlayer player, ServerPlayer target) {
+        PartyIndex index = PartyIndex.get(player.level().getServer());
+        PartyData party = index.getPartyOf(target.getUUID());
+
+        if (party == null) {
+            player.sendSystemMessage(Component.literal(target.getName().getString() + " is not in a party."));
+            return;
+        }
 
         if (party.isMember(player.getUUID())) {
             player.sendSystemMessage(Component.literal("You are already in the party."));
@@ -83,7 +85,7 @@ public class PartyManager {
         }
 
         party.addRequest(player.getUUID());
-        state.setDirty();
+        index.setDirty();
         player.sendSystemMessage(Component.literal("Join request sent to the party leader."));
 
         // Notify leader
@@ -96,10 +98,10 @@ public class PartyManager {
     }
 
     public static void acceptRequest(ServerPlayer leader, ServerPlayer requester) {
-        RpgWorldState state = RpgWorldState.get(leader.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(leader.level().getServer());
+        PartyData party = index.getPartyOf(leader.getUUID());
 
-        if (!party.isLeader(leader.getUUID())) {
+        if (party == null || !party.isLeader(leader.getUUID())) {
             leader.sendSystemMessage(Component.literal("Only the party leader can accept requests."));
             return;
         }
@@ -109,19 +111,21 @@ public class PartyManager {
             return;
         }
 
+        PartyData previous = index.getPartyOf(requester.getUUID());
         party.removeRequest(requester.getUUID());
-        party.addMember(requester.getUUID());
-        state.setDirty();
+        index.addMember(party, requester.getUUID());
 
         requester.sendSystemMessage(Component.literal("You joined the party!"));
-        syncPartyToAll(leader.level().getServer());
+        QuestStateSync.resync(requester);
+        syncPartyToAll(leader.level().getServer(), previous);
+        syncPartyToAll(leader.level().getServer(), party);
     }
 
     public static void kickPlayer(ServerPlayer leader, ServerPlayer target) {
-        RpgWorldState state = RpgWorldState.get(leader.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(leader.level().getServer());
+        PartyData party = index.getPartyOf(leader.getUUID());
 
-        if (!party.isLeader(leader.getUUID())) {
+        if (party == null || !party.isLeader(leader.getUUID())) {
             leader.sendSystemMessage(Component.literal("Only the party leader can kick players."));
             return;
         }
@@ -131,46 +135,50 @@ public class PartyManager {
             return;
         }
 
-        party.removeMember(target.getUUID());
-        state.setDirty();
+        if (!party.isMember(target.getUUID())) {
+            leader.sendSystemMessage(Component.literal(target.getName().getString() + " is not in your party."));
+            return;
+        }
+
+        index.removeMember(party, target.getUUID());
 
         target.sendSystemMessage(Component.literal("You have been kicked from the party."));
         if (DimensionHelper.isInRpgWorld(target)) {
             DimensionHelper.teleportToOverworld(target);
         }
-        syncPartyToAll(leader.level().getServer());
+        QuestStateSync.resync(target);
+        syncPartyToAll(leader.level().getServer(), party);
     }
 
     public static void leaveParty(ServerPlayer player) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-        PartyData party = state.getParty();
+        PartyIndex index = PartyIndex.get(player.level().getServer());
+        PartyData party = index.getPartyOf(player.getUUID());
 
-        if (!party.isMember(player.getUUID())) {
+        if (party == null) {
             player.sendSystemMessage(Component.literal("You are not in a party."));
             return;
         }
 
-        party.removeMember(player.getUUID());
-        state.setDirty();
+        index.removeMember(party, player.getUUID());
 
         player.sendSystemMessage(Component.literal("You left the party."));
         if (DimensionHelper.isInRpgWorld(player)) {
             DimensionHelper.teleportToOverworld(player);
         }
-        syncPartyToAll(player.level().getServer());
+        QuestStateSync.resync(player);
+        syncPartyToAll(player.level().getServer(), party);
     }
 
     public static void handlePartyAction(ServerPlayer player, PartyActionPayload payload) {
         switch (payload.action()) {
             case "accept_invite" -> acceptInvite(player);
-            case "request_join" -> requestJoin(player);
+            case "request_join" -> player.sendSystemMessage(Component.literal("Use /party join <player> to pick a party."));
             case "leave" -> leaveParty(player);
         }
     }
 
-    public static void syncPartyToAll(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
-        PartyData party = state.getParty();
+    public static void syncPartyToAll(MinecraftServer server, PartyData party) {
+        if (party == null) return;
 
         SyncPartyPayload payload = SyncPartyPayload.fromPartyData(party, server);
 
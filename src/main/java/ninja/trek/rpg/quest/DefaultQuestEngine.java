@@ -0,0 +1,302 @@
+package ninja.trek.rpg.quest;
+
+import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.data.AutoResolveConfig;
+import ninja.trek.rpg.data.QuestBranch;
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * The quest engine over an {@link RpgWorldState}. Deadlines live in the given timer queue,
+ * auto-resolve rolls come from the given random source, and {@code onCommit} runs after
+ * every batch of changes is applied (the server syncs the party there).
+ */
+public class DefaultQuestEngine implements QuestEngine {
+
+    private static final int TICKS_PER_LEVEL = 24000; // 1 MC day per quest level
+
+    private final RpgWorldState state;
+    private final QuestClock clock;
+    private final QuestTimerQueue timers;
+    private final RandomGenerator random;
+    private final Runnable onCommit;
+
+    public DefaultQuestEngine(RpgWorldState state, QuestClock clock, QuestTimerQueue timers,
+                              RandomGenerator random, Runnable onCommit) {
+        this.state = state;
+        this.clock = clock;
+        this.timers = timers;
+        this.random = random;
+        this.onCommit = onCommit;
+    }
+
+    @Override
+    public RpgWorldState getState() {
+        return state;
+    }
+
+    @Override
+    public QuestClock getClock() {
+        return clock;
+    }
+
+    public OutcomeTransaction newTransaction() {
+        return new OutcomeTransaction(state, onCommit);
+    }
+
+    @Override
+    public void initialize() {
+        FactionManager.initializeFactionStats(state);
+        CharacterManager.initializeCharacterLocations(state);
+        QuestManager.initializeQuestStates(state);
+        rebuildSchedule();
+    }
+
+    @Override
+    public void rebuildSchedule() {
+        RpgDataRegistry registry = RpgDataRegistry.getInstance();
+
+        timers.clear();
+        for (Map.Entry<String, Long> entry : state.getAllQuestTimers().entrySet()) {
+            if (state.getQuestState(entry.getKey()) != QuestState.ACTIVE) continue;
+
+            QuestData quest = registry.getQuest(entry.getKey());
+            if (quest != null) {
+                schedule(quest, entry.getValue());
+            }
+        }
+    }
+
+    private void schedule(QuestData quest, long activationTick) {
+        timers.schedule(quest.fullId(), activationTick + (long) quest.level() * TICKS_PER_LEVEL);
+    }
+
+    @Override
+    public List<QuestData> getAvailableQuests() {
+        return QuestManager.getAvailableQuests(state);
+    }
+
+    @Override
+    public boolean acceptQuest(String fullId) {
+        if (state.getQuestState(fullId) != QuestState.AVAILABLE) {
+            Mcrpg.LOGGER.warn("Cannot accept quest {}: not available (state={})", fullId, state.getQuestState(fullId));
+            return false;
+        }
+
+        QuestData quest = RpgDataRegistry.getInstance().getQuest(fullId);
+        if (quest == null) {
+            Mcrpg.LOGGER.error("Cannot accept quest {}: not found in registry", fullId);
+            return false;
+        }
+
+        state.setQuestState(fullId, QuestState.ACTIVE);
+
+        // Start timer
+        long currentTick = clock.now();
+        state.setQuestTimer(fullId, currentTick);
+        schedule(quest, currentTick);
+
+        // Move characters to quest location
+        CharacterManager.moveCharactersForQuest(state, quest);
+
+        Mcrpg.LOGGER.info("Quest {} accepted", fullId);
+
+        onCommit.run();
+        return true;
+    }
+
+    @Override
+    public boolean completeQuest(String fullId, String branchId) {
+        OutcomeTransaction tx = newTransaction();
+        if (!completeQuest(tx, fullId, branchId)) return false;
+        tx.commit();
+        return true;
+    }
+
+    /**
+     * Records the completion and its branch outcomes in the transaction; nothing is applied
+     * or synced until it commits. Returns false, recording nothing, if the quest or the
+     * branch doesn't exist.
+     */
+    public boolean completeQuest(OutcomeTransaction tx, String fullId, String branchId) {
+        RpgDataRegistry registry = RpgDataRegistry.getInstance();
+
+        QuestData quest = registry.getQuest(fullId);
+        if (quest == null) {
+            Mcrpg.LOGGER.error("Cannot complete quest {}: not found", fullId);
+            return false;
+        }
+
+        QuestBranch branch = null;
+        for (QuestBranch b : quest.branches()) {
+            if (b.id().equals(branchId)) {
+                branch = b;
+                break;
+            }
+        }
+
+        if (branch == null) {
+            Mcrpg.LOGGER.error("Cannot complete quest {}: branch {} not found", fullId, branchId);
+            return false;
+        }
+
+        tx.setQuestState(fullId, QuestState.COMPLETED);
+        tx.setCompletedBranch(fullId, branchId);
+        tx.removeQuestTimer(fullId);
+        timers.cancel(fullId);
+
+        // Apply branch outcomes
+        String source = fullId + "." + branchId;
+        OutcomeApplicator.apply(tx, branch.outcomes(), registry.getCompiledBranch(fullId, branchId), source);
+
+        // Return characters home
+        CharacterManager.returnCharactersHome(tx, quest);
+
+        // Handle triggers (immediately activate)
+        for (String triggeredId : branch.outcomes().triggers()) {
+            QuestData triggered = registry.getQuest(triggeredId);
+            if (triggered != null) {
+                tx.setQuestState(triggeredId, QuestState.AVAILABLE);
+                Mcrpg.LOGGER.info("Quest {} triggered by {}", triggeredId, fullId);
+            }
+        }
+
+        // Handle blocks
+        for (String blockedId : branch.outcomes().blocks()) {
+            if (tx.getQuestState(blockedId) == QuestState.AVAILABLE) {
+                tx.setQuestState(blockedId, QuestState.BLOCKED);
+                Mcrpg.LOGGER.info("Quest {} blocked by {}", blockedId, fullId);
+            }
+        }
+
+        Mcrpg.LOGGER.info("Quest {} completed via branch {}", fullId, branchId);
+        return true;
+    }
+
+    @Override
+    public void failQuest(String fullId) {
+        OutcomeTransaction tx = newTransaction();
+        failQuest(tx, fullId);
+        tx.commit();
+    }
+
+    public void failQuest(OutcomeTransaction tx, String fullId) {
+        QuestData quest = RpgDataRegistry.getInstance().getQuest(fullId);
+        if (quest == null) return;
+
+        tx.setQuestState(fullId, QuestState.FAILED);
+        tx.removeQuestTimer(fullId);
+        timers.cancel(fullId);
+
+        CharacterManager.returnCharactersHome(tx, quest);
+
+        Mcrpg.LOGGER.info("Quest {} failed", fullId);
+    }
+
+    @Override
+    public int resolveExpired() {
+        List<String> expired = timers.pollExpired(clock.now());
+        if (expired.isEmpty()) return 0;
+
+        // Everything that expires at once resolves as one batch
+        OutcomeTransaction tx = newTransaction();
+        int resolved = 0;
+        for (String fullId : expired) {
+            if (tx.getQuestState(fullId) != QuestState.ACTIVE) continue;
+
+            QuestData quest = RpgDataRegistry.getInstance().getQuest(fullId);
+            if (quest == null) continue;
+
+            autoResolve(tx, quest);
+            resolved++;
+        }
+        tx.commit();
+        return resolved;
+    }
+
+    private void autoResolve(OutcomeTransaction tx, QuestData quest) {
+        if (quest.autoResolve().isEmpty()) {
+            Mcrpg.LOGGER.info("Quest {} has no auto-resolve config, failing", quest.fullId());
+            failQuest(tx, quest.fullId());
+            return;
+        }
+
+        AutoResolveConfig config = quest.autoResolve().get();
+
+        switch (config.type()) {
+            case FAIL -> {
+                Mcrpg.LOGGER.info("Auto-resolving quest {} as FAIL", quest.fullId());
+                failQuest(tx, quest.fullId());
+            }
+            case PREDETERMINED -> {
+                String branchId = config.fallback().orElse(null);
+                if (branchId == null && !quest.branches().isEmpty()) {
+                    branchId = quest.branches().getFirst().id();
+                }
+                if (branchId != null) {
+                    Mcrpg.LOGGER.info("Auto-resolving quest {} with predetermined branch: {}", quest.fullId(), branchId);
+                    completeOrFail(tx, quest, branchId);
+                } else {
+                    failQuest(tx, quest.fullId());
+                }
+            }
+            case RANDOM -> {
+                if (!quest.branches().isEmpty()) {
+                    QuestBranch branch = quest.branches().get(random.nextInt(quest.branches().size()));
+                    Mcrpg.LOGGER.info("Auto-resolving quest {} with random branch: {}", quest.fullId(), branch.id());
+                    completeOrFail(tx, quest, branch.id());
+                } else {
+                    failQuest(tx, quest.fullId());
+                }
+            }
+            case WEIGHTED_RANDOM -> {
+                String selectedBranch = selectWeightedRandom(config.weights());
+                if (selectedBranch != null) {
+                    Mcrpg.LOGGER.info("Auto-resolving quest {} with weighted random branch: {}", quest.fullId(), selectedBranch);
+                    completeOrFail(tx, quest, selectedBranch);
+                } else {
+                    // Fallback
+                    String fallback = config.fallback().orElse(null);
+                    if (fallback != null) {
+                        completeOrFail(tx, quest, fallback);
+                    } else {
+                        failQuest(tx, quest.fullId());
+                    }
+                }
+            }
+        }
+    }
+
+    // The timer is already gone, so a quest that can't complete must not stay active
+    private void completeOrFail(OutcomeTransaction tx, QuestData quest, String branchId) {
+        if (!completeQuest(tx, quest.fullId(), branchId)) {
+            Mcrpg.LOGGER.warn("Auto-resolving quest {} as FAIL instead", quest.fullId());
+            failQuest(tx, quest.fullId());
+        }
+    }
+
+    private String selectWeightedRandom(Map<String, Integer> weights) {
+        if (weights.isEmpty()) return null;
+
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        if (totalWeight <= 0) return null;
+
+        int roll = random.nextInt(totalWeight);
+        int cumulative = 0;
+
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            cumulative += entry.getValue();
+            if (roll < cumulative) {
+                return entry.getKey();
+            }
+        }
+
+        return weights.keySet().iterator().next();
+    }
+}
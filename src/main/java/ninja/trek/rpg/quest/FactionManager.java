@@ -10,8 +10,7 @@ import java.util.Map;
 
 public class FactionManager {
 
-    public static void initializeFactionStats(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
+    public static void initializeFactionStats(RpgWorldState state) {
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
 
         for (FactionData faction : registry.getAllFactions()) {
@@ -31,7 +30,7 @@ public class FactionManager {
         return faction != null && faction.unlocked();
     }
 
-    public static int getFactionStat(MinecraftServer server, String factionId, String stat) {
-        return RpgWorldState.get(server).getFactionStat(factionId, stat);
+    public static int getFactionStat(RpgWorldState state, String factionId, String stat) {
+        return state.getFactionStat(factionId, stat);
     }
 }
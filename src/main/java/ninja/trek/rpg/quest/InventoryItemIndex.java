@@ -0,0 +1,84 @@
+package ninja.trek.rpg.quest;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.inventory.AbstractContainerMenu;
+import net.minecraft.world.inventory.ContainerListener;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player item counts, built from one pass over the inventory and reused until it
+ * changes. A player's index is dropped by:
+ * <ul>
+ *   <li>the inventory mixin, when slots are set, items are added or removed, or the inventory
+ *   is marked changed;</li>
+ *   <li>a slot listener on the player's inventory menu, which vanilla calls when it finds a
+ *   slot that differs from what the client last saw. That covers stacks resized in place
+ *   (placing blocks, eating, breaking tools), by the end of the player's tick at the latest.</li>
+ * </ul>
+ * Server thread only.
+ */
+public class InventoryItemIndex {
+
+    private static final Map<UUID, InventoryItemIndex> indices = new HashMap<>();
+
+    private static final ContainerListener SLOT_LISTENER = new ContainerListener() {
+        @Override
+        public void slotChanged(AbstractContainerMenu menu, int slot, ItemStack stack) {
+            if (menu.getSlot(slot).container instanceof Inventory inventory
+                && inventory.player instanceof ServerPlayer player) {
+                invalidate(player);
+            }
+        }
+
+        @Override
+        public void dataChanged(AbstractContainerMenu menu, int id, int value) {
+        }
+    };
+
+    private final Object2IntOpenHashMap<Item> counts = new Object2IntOpenHashMap<>();
+
+    private InventoryItemIndex(Inventory inventory) {
+        for (int i = 0; i < inventory.getContainerSize(); i++) {
+            ItemStack stack = inventory.getItem(i);
+            if (stack.isEmpty()) continue;
+            counts.addTo(stack.getItem(), stack.getCount());
+        }
+    }
+
+    public static void register() {
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> listen(handler.getPlayer()));
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> indices.remove(handler.getPlayer().getUUID()));
+        // Respawning creates a new player with a new inventory menu
+        ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> listen(newPlayer));
+    }
+
+    private static void listen(ServerPlayer player) {
+        player.inventoryMenu.addSlotListener(SLOT_LISTENER);
+        invalidate(player);
+    }
+
+    public static InventoryItemIndex of(ServerPlayer player) {
+        return indices.computeIfAbsent(player.getUUID(), id -> new InventoryItemIndex(player.getInventory()));
+    }
+
+    public static void invalidate(ServerPlayer player) {
+        indices.remove(player.getUUID());
+    }
+
+    public static void clear() {
+        indices.clear();
+    }
+
+    public int count(Item item) {
+        return item != null ? counts.getInt(item) : 0;
+    }
+}
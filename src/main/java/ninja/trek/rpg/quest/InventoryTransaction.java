@@ -0,0 +1,135 @@
+package ninja.trek.rpg.quest;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import ninja.trek.rpg.data.compiled.ItemCheck;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Gives and takes items as one unit. Everything is planned against a copy of the inventory
+ * taken in a single scan: if any take can't be covered in full nothing changes at all,
+ * otherwise only the slots that differ are written back. Gives that don't fit are dropped
+ * at the player's feet rather than lost.
+ */
+public class InventoryTransaction {
+
+    public enum Result { APPLIED, INSUFFICIENT_ITEMS }
+
+    private final ServerPlayer player;
+    private final List<ItemCheck> gives = new ArrayList<>();
+    private final List<ItemCheck> takes = new ArrayList<>();
+
+    public InventoryTransaction(ServerPlayer player) {
+        this.player = player;
+    }
+
+    public InventoryTransaction give(ItemCheck... checks) {
+        for (ItemCheck check : checks) {
+            if (check.item() != null && check.count() > 0) gives.add(check);
+        }
+        return this;
+    }
+
+    public InventoryTransaction take(ItemCheck... checks) {
+        for (ItemCheck check : checks) {
+            if (check.item() != null && check.count() > 0) takes.add(check);
+        }
+        return this;
+    }
+
+    public Result commit() {
+        if (gives.isEmpty() && takes.isEmpty()) return Result.APPLIED;
+
+        Inventory inventory = player.getInventory();
+        int size = inventory.getContainerSize();
+        ItemStack[] planned = new ItemStack[size];
+        Object2IntOpenHashMap<Item> available = new Object2IntOpenHashMap<>();
+        for (int i = 0; i < size; i++) {
+            ItemStack stack = inventory.getItem(i).copy();
+            planned[i] = stack;
+            if (!stack.isEmpty()) available.addTo(stack.getItem(), stack.getCount());
+        }
+
+        // Verify every take before touching anything
+        Object2IntOpenHashMap<Item> required = new Object2IntOpenHashMap<>();
+        for (ItemCheck check : takes) {
+            required.addTo(check.item(), check.count());
+        }
+        for (Object2IntOpenHashMap.Entry<Item> entry : required.object2IntEntrySet()) {
+            if (available.getInt(entry.getKey()) < entry.getIntValue()) return Result.INSUFFICIENT_ITEMS;
+        }
+
+        BitSet changed = new BitSet(size);
+        for (ItemCheck check : takes) {
+            int remaining = check.count();
+            for (int i = 0; i < size && remaining > 0; i++) {
+                if (!planned[i].is(check.item())) continue;
+                int toRemove = Math.min(remaining, planned[i].getCount());
+                planned[i].shrink(toRemove);
+                remaining -= toRemove;
+                changed.set(i);
+            }
+        }
+
+        List<ItemStack> overflow = new ArrayList<>();
+        for (ItemCheck check : gives) {
+            ItemStack leftover = place(planned, new ItemStack(check.item()), check.count(), changed);
+            if (!leftover.isEmpty()) overflow.add(leftover);
+        }
+
+        ItemStack[] original = new ItemStack[size];
+        try {
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                original[i] = inventory.getItem(i);
+                inventory.setItem(i, planned[i].isEmpty() ? ItemStack.EMPTY : planned[i]);
+            }
+        } catch (RuntimeException e) {
+            for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+                if (original[i] != null) inventory.setItem(i, original[i]);
+            }
+            throw e;
+        }
+
+        for (ItemStack stack : overflow) {
+            while (!stack.isEmpty()) {
+                player.drop(stack.split(stack.getMaxStackSize()), false);
+            }
+        }
+        return Result.APPLIED;
+    }
+
+    /**
+     * Merges {@code count} of the template into matching stacks, then into empty main
+     * inventory slots. Returns whatever is left over.
+     */
+    private static ItemStack place(ItemStack[] planned, ItemStack template, int count, BitSet changed) {
+        int slots = Math.min(planned.length, Inventory.INVENTORY_SIZE);
+        int remaining = count;
+
+        for (int i = 0; i < slots && remaining > 0; i++) {
+            ItemStack stack = planned[i];
+            if (stack.isEmpty() || !ItemStack.isSameItemSameComponents(stack, template)) continue;
+            int toAdd = Math.min(remaining, stack.getMaxStackSize() - stack.getCount());
+            if (toAdd <= 0) continue;
+            stack.grow(toAdd);
+            remaining -= toAdd;
+            changed.set(i);
+        }
+
+        for (int i = 0; i < slots && remaining > 0; i++) {
+            if (!planned[i].isEmpty()) continue;
+            int toAdd = Math.min(remaining, template.getMaxStackSize());
+            planned[i] = template.copyWithCount(toAdd);
+            remaining -= toAdd;
+            changed.set(i);
+        }
+
+        return remaining > 0 ? template.copyWithCount(remaining) : ItemStack.EMPTY;
+    }
+}
@@ -1,6 +1,5 @@
 package ninja.trek.rpg.quest;
 
-import net.minecraft.server.MinecraftServer;
 import ninja.trek.rpg.Mcrpg;
 import ninja.trek.rpg.data.LocationData;
 import ninja.trek.rpg.data.LocationStateData;
@@ -25,13 +24,12 @@ public class LocationManager {
         return structureReferences.get(locationId);
     }
 
-    public static void onStateChanged(MinecraftServer server, String locationId, String newState) {
+    public static void onStateChanged(String locationId, String newState) {
         Mcrpg.LOGGER.info("Location {} state changed to: {}", locationId, newState);
     }
 
-    public static List<String> getCurrentConnections(MinecraftServer server, String locationId) {
+    public static List<String> getCurrentConnections(RpgWorldState state, String locationId) {
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
-        RpgWorldState state = RpgWorldState.get(server);
 
         LocationData location = registry.getLocation(locationId);
         if (location == null) return List.of();
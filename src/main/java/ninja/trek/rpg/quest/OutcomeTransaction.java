@@ -0,0 +1,121 @@
+package ninja.trek.rpg.quest;
+
+import ninja.trek.rpg.state.CharacterExtra;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+
+import java.util.*;
+
+/**
+ * Collects the state changes from resolving one or more quests and applies them together on
+ * {@link #commit()}, followed by a single availability re-evaluation and one commit callback.
+ * Reads of quest states go through the transaction, so later steps see earlier changes before
+ * they are applied.
+ */
+public class OutcomeTransaction {
+
+    private final RpgWorldState state;
+    private final Runnable onCommit;
+
+    private final Map<String, QuestState> questStates = new LinkedHashMap<>();
+    private final Map<String, String> completedBranches = new LinkedHashMap<>();
+    private final Set<String> removedTimers = new LinkedHashSet<>();
+    private final Map<String, Map<String, Integer>> factionStatDeltas = new LinkedHashMap<>();
+    private final Map<String, Boolean> globalVars = new LinkedHashMap<>();
+    private final Map<String, String> locationStates = new LinkedHashMap<>();
+    private final List<Map.Entry<String, CharacterExtra>> characterExtras = new ArrayList<>();
+    private final Map<String, String> characterLocations = new LinkedHashMap<>();
+
+    /**
+     * {@code onCommit} runs after each non-empty commit; the server syncs the party there.
+     */
+    public OutcomeTransaction(RpgWorldState state, Runnable onCommit) {
+        this.state = state;
+        this.onCommit = onCommit;
+    }
+
+    public RpgWorldState getState() {
+        return state;
+    }
+
+    public QuestState getQuestState(String fullId) {
+        QuestState pending = questStates.get(fullId);
+        return pending != null ? pending : state.getQuestState(fullId);
+    }
+
+    public void setQuestState(String fullId, QuestState questState) {
+        questStates.put(fullId, questState);
+    }
+
+    public void setCompletedBranch(String fullId, String branchId) {
+        completedBranches.put(fullId, branchId);
+    }
+
+    public void removeQuestTimer(String fullId) {
+        removedTimers.add(fullId);
+    }
+
+    public void addFactionStat(String factionId, String stat, int delta) {
+        factionStatDeltas.computeIfAbsent(factionId, k -> new LinkedHashMap<>()).merge(stat, delta, Integer::sum);
+    }
+
+    public void setGlobalVar(String key, boolean value) {
+        globalVars.put(key, value);
+    }
+
+    public void setLocationState(String locationId, String locationState) {
+        locationStates.put(locationId, locationState);
+    }
+
+    public void addCharacterExtra(String characterId, CharacterExtra extra) {
+        characterExtras.add(Map.entry(characterId, extra));
+    }
+
+    public void setCharacterLocation(String characterId, String locationId) {
+        characterLocations.put(characterId, locationId);
+    }
+
+    public boolean isEmpty() {
+        return questStates.isEmpty() && completedBranches.isEmpty() && removedTimers.isEmpty()
+            && factionStatDeltas.isEmpty() && globalVars.isEmpty() && locationStates.isEmpty()
+            && characterExtras.isEmpty() && characterLocations.isEmpty();
+    }
+
+    /**
+     * Applies everything collected so far, re-evaluates the quests those changes affect and
+     * syncs the party once. The transaction is empty again afterwards.
+     */
+    public void commit() {
+        if (isEmpty()) return;
+
+        questStates.forEach(state::setQuestState);
+        completedBranches.forEach(state::setCompletedBranch);
+        removedTimers.forEach(state::removeQuestTimer);
+        factionStatDeltas.forEach((factionId, deltas) ->
+            deltas.forEach((stat, delta) -> state.addFactionStat(factionId, stat, delta)));
+        globalVars.forEach(state::setGlobalVar);
+        locationStates.forEach((locationId, locationState) -> {
+            state.setLocationState(locationId, locationState);
+            LocationManager.onStateChanged(locationId, locationState);
+        });
+        characterExtras.forEach(entry -> state.addCharacterExtra(entry.getKey(), entry.getValue()));
+        state.setCharacterLocations(characterLocations);
+
+        clear();
+
+        // Chained unlocks settle here, then the whole batch goes out as one delta
+        QuestManager.reevaluateAvailability(state);
+        onCommit.run();
+    }
+
+    private void clear() {
+        questStates.clear();
+        completedBranches.clear();
+        removedTimers.clear();
+        factionStatDeltas.clear();
+        globalVars.clear();
+        locationStates.clear();
+        characterExtras.clear();
+        characterLocations.clear();
+    }
+}
@@ -0,0 +1,18 @@
+package ninja.trek.rpg.quest;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+
+/**
+ * Game time as the quest engine sees it. On a server this is the overworld's game time;
+ * the headless simulator advances its own.
+ */
+@FunctionalInterface
+public interface QuestClock {
+
+    long now();
+
+    static QuestClock of(MinecraftServer server) {
+        return () -> server.getLevel(Level.OVERWORLD).getGameTime();
+    }
+}
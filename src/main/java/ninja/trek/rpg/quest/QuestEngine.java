@@ -0,0 +1,50 @@
+package ninja.trek.rpg.quest;
+
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.state.RpgWorldState;
+
+import java.util.List;
+
+/**
+ * Quest rules for one party's world state: accepting, completing and failing quests and
+ * auto-resolving the ones whose time has run out. Nothing here needs a running server, so
+ * the same rules drive the game and the headless simulator.
+ */
+public interface QuestEngine {
+
+    RpgWorldState getState();
+
+    QuestClock getClock();
+
+    /**
+     * Seeds faction stats, character locations and quest states for content the state
+     * hasn't seen yet, then schedules deadlines for the active quests.
+     */
+    void initialize();
+
+    /**
+     * Recomputes auto-resolve deadlines for every active quest, e.g. after quest levels
+     * change on a data reload.
+     */
+    void rebuildSchedule();
+
+    List<QuestData> getAvailableQuests();
+
+    /**
+     * Returns false if the quest isn't available or doesn't exist.
+     */
+    boolean acceptQuest(String fullId);
+
+    /**
+     * Returns false if the quest or the branch doesn't exist.
+     */
+    boolean completeQuest(String fullId, String branchId);
+
+    void failQuest(String fullId);
+
+    /**
+     * Auto-resolves every active quest whose deadline has passed, as one transaction.
+     * Returns how many quests were resolved.
+     */
+    int resolveExpired();
+}
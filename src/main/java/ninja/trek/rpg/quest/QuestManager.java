@@ -4,24 +4,33 @@ import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
 import ninja.trek.rpg.Mcrpg;
-import ninja.trek.rpg.data.QuestBranch;
 import ninja.trek.rpg.data.QuestData;
-import ninja.trek.rpg.data.QuestOutcomes;
+import ninja.trek.rpg.data.loader.QuestDependencyIndex;
 import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.network.payloads.JournalMetadataPayload;
+import ninja.trek.rpg.network.payloads.RequestJournalPayload;
 import ninja.trek.rpg.network.payloads.SyncJournalPayload;
-import ninja.trek.rpg.network.payloads.SyncQuestStatePayload;
+import ninja.trek.rpg.state.PendingChanges;
 import ninja.trek.rpg.state.QuestState;
 import ninja.trek.rpg.state.RpgWorldState;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.util.Random;
 
 public class QuestManager {
 
-    public static void initializeQuestStates(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
+    private static final int JOURNAL_PAGE_SIZE = 20;
+
+    // Auto-resolve rolls; server thread only
+    private static final Random random = new Random();
+
+    // Journal metadata for the current registry; quest indices in journal pages refer to this order
+    private static JournalMetadata journalMetadata;
+
+    private record JournalMetadata(long version, List<QuestData> quests, JournalMetadataPayload payload) {}
+
+    public static void initializeQuestStates(RpgWorldState state) {
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
 
         int initialized = 0;
@@ -32,8 +41,8 @@ public class QuestManager {
             if (current != QuestState.BLOCKED) continue;
 
             // Only set to BLOCKED if this is first-time init (not in save yet)
-            if (!state.getAllQuestStates().containsKey(fullId)) {
-                if (RequirementChecker.checkRequirements(quest.requirements(), state)) {
+            if (!state.hasQuestState(fullId)) {
+                if (RequirementChecker.checkRequirements(registry.getCompiledRequirements(fullId), state)) {
                     state.setQuestState(fullId, QuestState.AVAILABLE);
                 } else {
                     state.setQuestState(fullId, QuestState.BLOCKED);
@@ -45,23 +54,42 @@ public class QuestManager {
         Mcrpg.LOGGER.info("Initialized quest states: {} quests processed", initialized);
     }
 
-    public static void reevaluateAvailability(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
-        RpgDataRegistry registry = RpgDataRegistry.getInstance();
+    public static void reevaluateAvailability(RpgWorldState state) {
+        QuestDependencyIndex index = RpgDataRegistry.getInstance().getDependencyIndex();
 
-        for (QuestData quest : registry.getAllQuests()) {
-            String fullId = quest.fullId();
-            if (state.getQuestState(fullId) == QuestState.BLOCKED) {
-                if (RequirementChecker.checkRequirements(quest.requirements(), state)) {
-                    state.setQuestState(fullId, QuestState.AVAILABLE);
-                    Mcrpg.LOGGER.info("Quest {} is now available", fullId);
-                }
+        // Only re-check BLOCKED quests whose requirements reference something that changed
+        while (state.hasPendingChanges()) {
+            PendingChanges changes = state.drainPendingChanges();
+            for (String fullId : index.collectAffected(changes)) {
+                reevaluateQuest(state, fullId);
             }
         }
     }
 
-    public static List<QuestData> getAvailableQuests(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
+    /**
+     * Full pass for when content changes under a loaded state: new quests are initialized and
+     * every BLOCKED quest is re-checked, since its requirements may be different now.
+     */
+    public static void reevaluateAll(RpgWorldState state) {
+        initializeQuestStates(state);
+        for (QuestData quest : RpgDataRegistry.getInstance().getAllQuests()) {
+            reevaluateQuest(state, quest.fullId());
+        }
+        reevaluateAvailability(state);
+    }
+
+    private static void reevaluateQuest(RpgWorldState state, String fullId) {
+        if (state.getQuestState(fullId) != QuestState.BLOCKED) return;
+
+        RpgDataRegistry registry = RpgDataRegistry.getInstance();
+        if (registry.getQuest(fullId) != null
+            && RequirementChecker.checkRequirements(registry.getCompiledRequirements(fullId), state)) {
+            state.setQuestState(fullId, QuestState.AVAILABLE);
+            Mcrpg.LOGGER.info("Quest {} is now available", fullId);
+        }
+    }
+
+    public static List<QuestData> getAvailableQuests(RpgWorldState state) {
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
         List<QuestData> available = new ArrayList<>();
 
@@ -74,152 +102,87 @@ public class QuestManager {
         return available;
     }
 
-    public static void acceptQuest(MinecraftServer server, String fullId) {
-        RpgWorldState state = RpgWorldState.get(server);
-        RpgDataRegistry registry = RpgDataRegistry.getInstance();
-
-        if (state.getQuestState(fullId) != QuestState.AVAILABLE) {
-            Mcrpg.LOGGER.warn("Cannot accept quest {}: not available (state={})", fullId, state.getQuestState(fullId));
-            return;
-        }
-
-        QuestData quest = registry.getQuest(fullId);
-        if (quest == null) {
-            Mcrpg.LOGGER.error("Cannot accept quest {}: not found in registry", fullId);
-            return;
-        }
-
-        state.setQuestState(fullId, QuestState.ACTIVE);
+    /**
+     * The quest engine for a party shard on this server. Changes it commits are synced to the
+     * party's online members.
+     */
+    public static QuestEngine engine(MinecraftServer server, RpgWorldState state) {
+        return new DefaultQuestEngine(state, QuestClock.of(server), AutoResolveHandler.timersFor(state), random,
+            () -> syncQuestStateToAll(server, state));
+    }
 
-        // Start timer
-        long currentTick = server.getLevel(net.minecraft.world.level.Level.OVERWORLD).getGameTime();
-        state.setQuestTimer(fullId, currentTick);
+    /**
+     * A transaction whose commit re-evaluates availability and syncs the party, for changes
+     * made outside quest resolution (e.g. dialog outcomes).
+     */
+    public static OutcomeTransaction transaction(MinecraftServer server, RpgWorldState state) {
+        return new OutcomeTransaction(state, () -> syncQuestStateToAll(server, state));
+    }
 
-        // Move characters to quest location
-        CharacterManager.moveCharactersForQuest(server, quest);
+    public static void acceptQuest(MinecraftServer server, RpgWorldState state, String fullId) {
+        engine(server, state).acceptQuest(fullId);
+    }
 
-        Mcrpg.LOGGER.info("Quest {} accepted", fullId);
+    public static void completeQuest(MinecraftServer server, RpgWorldState state, String fullId, String branchId) {
+        engine(server, state).completeQuest(fullId, branchId);
+    }
 
-        syncQuestStateToAll(server);
+    public static void failQuest(MinecraftServer server, RpgWorldState state, String fullId) {
+        engine(server, state).failQuest(fullId);
     }
 
-    public static void completeQuest(MinecraftServer server, String fullId, String branchId) {
-        RpgWorldState state = RpgWorldState.get(server);
+    public static void sendJournalData(ServerPlayer player, RequestJournalPayload request) {
+        RpgWorldState state = RpgWorldState.get(player);
         RpgDataRegistry registry = RpgDataRegistry.getInstance();
+        JournalMetadata metadata = getJournalMetadata(registry);
 
-        QuestData quest = registry.getQuest(fullId);
-        if (quest == null) {
-            Mcrpg.LOGGER.error("Cannot complete quest {}: not found", fullId);
-            return;
-        }
-
-        QuestBranch branch = null;
-        for (QuestBranch b : quest.branches()) {
-            if (b.id().equals(branchId)) {
-                branch = b;
-                break;
-            }
+        // Quest text only goes out when the client's cached copy is from another registry
+        if (request.metadataVersion() != registry.getVersion()) {
+            ServerPlayNetworking.send(player, metadata.payload());
         }
 
-        if (branch == null) {
-            Mcrpg.LOGGER.error("Cannot complete quest {}: branch {} not found", fullId, branchId);
-            return;
-        }
-
-        state.setQuestState(fullId, QuestState.COMPLETED);
-        state.setCompletedBranch(fullId, branchId);
-        state.removeQuestTimer(fullId);
-
-        // Apply branch outcomes
-        String source = fullId + "." + branchId;
-        OutcomeApplicator.apply(server, branch.outcomes(), source);
-
-        // Return characters home
-        CharacterManager.returnCharactersHome(server, quest);
-
-        // Handle triggers (immediately activate)
-        for (String triggeredId : branch.outcomes().triggers()) {
-            QuestData triggered = registry.getQuest(triggeredId);
-            if (triggered != null) {
-                state.setQuestState(triggeredId, QuestState.AVAILABLE);
-                Mcrpg.LOGGER.info("Quest {} triggered by {}", triggeredId, fullId);
-            }
-        }
+        int first = Math.max(0, request.page()) * JOURNAL_PAGE_SIZE;
+        int matched = 0;
+        List<SyncJournalPayload.JournalEntry> entries = new ArrayList<>();
+        List<QuestData> quests = metadata.quests();
+        for (int i = 0; i < quests.size(); i++) {
+            QuestData quest = quests.get(i);
+            QuestState questState = state.getQuestState(quest.fullId());
+            if (!request.tab().matches(questState)) continue;
 
-        // Handle blocks
-        for (String blockedId : branch.outcomes().blocks()) {
-            if (state.getQuestState(blockedId) == QuestState.AVAILABLE) {
-                state.setQuestState(blockedId, QuestState.BLOCKED);
-                Mcrpg.LOGGER.info("Quest {} blocked by {}", blockedId, fullId);
+            if (matched >= first && entries.size() < JOURNAL_PAGE_SIZE) {
+                Long timer = state.getQuestTimer(quest.fullId());
+                entries.add(new SyncJournalPayload.JournalEntry(i, questState, timer != null ? timer : 0));
             }
+            matched++;
         }
 
-        // Reevaluate availability
-        reevaluateAvailability(server);
-
-        Mcrpg.LOGGER.info("Quest {} completed via branch {}", fullId, branchId);
-
-        syncQuestStateToAll(server);
+        int pageCount = Math.max(1, (matched + JOURNAL_PAGE_SIZE - 1) / JOURNAL_PAGE_SIZE);
+        ServerPlayNetworking.send(player, new SyncJournalPayload(request.tab(), request.page(), pageCount, entries));
     }
 
-    public static void failQuest(MinecraftServer server, String fullId) {
-        RpgWorldState state = RpgWorldState.get(server);
-        RpgDataRegistry registry = RpgDataRegistry.getInstance();
-
-        QuestData quest = registry.getQuest(fullId);
-        if (quest == null) return;
-
-        state.setQuestState(fullId, QuestState.FAILED);
-        state.removeQuestTimer(fullId);
-
-        CharacterManager.returnCharactersHome(server, quest);
+    private static JournalMetadata getJournalMetadata(RpgDataRegistry registry) {
+        JournalMetadata cached = journalMetadata;
+        if (cached != null && cached.version() == registry.getVersion()) return cached;
 
-        Mcrpg.LOGGER.info("Quest {} failed", fullId);
-
-        reevaluateAvailability(server);
-        syncQuestStateToAll(server);
-    }
-
-    public static void sendJournalData(ServerPlayer player) {
-        RpgWorldState state = RpgWorldState.get(player.level().getServer());
-        RpgDataRegistry registry = RpgDataRegistry.getInstance();
-
-        List<SyncJournalPayload.JournalEntry> entries = new ArrayList<>();
-        for (QuestData quest : registry.getAllQuests()) {
-            QuestState questState = state.getQuestState(quest.fullId());
-            long timer = 0;
-            Long timerVal = state.getQuestTimer(quest.fullId());
-            if (timerVal != null) {
-                timer = timerVal;
-            }
-            entries.add(new SyncJournalPayload.JournalEntry(
+        List<QuestData> quests = List.copyOf(registry.getAllQuests());
+        List<JournalMetadataPayload.QuestMetadata> entries = new ArrayList<>(quests.size());
+        for (QuestData quest : quests) {
+            entries.add(new JournalMetadataPayload.QuestMetadata(
                 quest.fullId(),
                 quest.summary(),
                 quest.factionId(),
                 quest.level(),
-                questState.name(),
-                quest.location(),
-                timer
+                quest.location()
             ));
         }
 
-        ServerPlayNetworking.send(player, new SyncJournalPayload(entries));
+        cached = new JournalMetadata(registry.getVersion(), quests, new JournalMetadataPayload(registry.getVersion(), entries));
+        journalMetadata = cached;
+        return cached;
     }
 
-    public static void syncQuestStateToAll(MinecraftServer server) {
-        RpgWorldState state = RpgWorldState.get(server);
-        Map<String, QuestState> allStates = state.getAllQuestStates();
-
-        List<SyncQuestStatePayload.QuestStateEntry> entries = new ArrayList<>();
-        allStates.forEach((id, qs) -> entries.add(new SyncQuestStatePayload.QuestStateEntry(id, qs.name())));
-
-        SyncQuestStatePayload payload = new SyncQuestStatePayload(entries);
-
-        for (UUID memberId : state.getParty().getMembers()) {
-            ServerPlayer member = server.getPlayerList().getPlayer(memberId);
-            if (member != null) {
-                ServerPlayNetworking.send(member, payload);
-            }
-        }
+    public static void syncQuestStateToAll(MinecraftServer server, RpgWorldState state) {
+        QuestStateSync.syncToMembers(server, state);
     }
 }
@@ -0,0 +1,111 @@
+package ninja.trek.rpg.quest;
+
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import ninja.trek.rpg.network.payloads.SyncQuestStatePayload;
+import ninja.trek.rpg.state.PartyData;
+import ninja.trek.rpg.state.PartyIndex;
+import ninja.trek.rpg.state.QuestChangeLog;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+
+import java.util.*;
+
+/**
+ * Sends party members the quest states that changed since the revision each client last
+ * acknowledged. Clients without a usable acknowledgement (just joined, or too far behind the
+ * change log) get a full snapshot.
+ */
+public class QuestStateSync {
+
+    private static final Map<UUID, Long> ackedRevisions = new HashMap<>();
+
+    public static void register() {
+        // Joining also loads the player's party shard if nobody else has needed it yet
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> resync(handler.getPlayer()));
+
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            ackedRevisions.remove(handler.getPlayer().getUUID()));
+    }
+
+    /**
+     * Forgets what the player has acknowledged and sends a full snapshot of their party's
+     * quest states (an empty one if they're not in a party). Used on join and party changes.
+     */
+    public static void resync(ServerPlayer player) {
+        ackedRevisions.remove(player.getUUID());
+
+        MinecraftServer server = player.level().getServer();
+        PartyData party = PartyIndex.get(server).getPartyOf(player.getUUID());
+        if (party != null) {
+            ServerPlayNetworking.send(player, buildFullSnapshot(RpgWorldState.get(server, party.getId())));
+        } else {
+            ServerPlayNetworking.send(player, new SyncQuestStatePayload(true, 0, List.of()));
+        }
+    }
+
+    public static void acknowledge(ServerPlayer player, long revision) {
+        PartyData party = PartyIndex.get(player.level().getServer()).getPartyOf(player.getUUID());
+        if (party == null) return;
+
+        RpgWorldState state = RpgWorldState.get(player.level().getServer(), party.getId());
+        // Ignore acks from a previous session or for revisions never sent
+        if (revision > state.getQuestChanges().getRevision()) return;
+
+        ackedRevisions.merge(player.getUUID(), revision, Math::max);
+    }
+
+    public static void clear() {
+        ackedRevisions.clear();
+    }
+
+    public static void syncToMembers(MinecraftServer server, RpgWorldState state) {
+        PartyData party = PartyIndex.get(server).getParty(state.getPartyId());
+        if (party == null) return;
+
+        long revision = state.getQuestChanges().getRevision();
+
+        // Members at the same acknowledged revision share one payload
+        Map<Long, SyncQuestStatePayload> deltas = new HashMap<>();
+        SyncQuestStatePayload full = null;
+
+        for (UUID memberId : party.getMembers()) {
+            ServerPlayer member = server.getPlayerList().getPlayer(memberId);
+            if (member == null) continue;
+
+            Long acked = ackedRevisions.get(memberId);
+            if (acked != null && acked == revision) continue;
+
+            SyncQuestStatePayload payload = acked == null ? null
+                : deltas.computeIfAbsent(acked, since -> buildDelta(state, since));
+            if (payload == null) {
+                if (full == null) full = buildFullSnapshot(state);
+                payload = full;
+            }
+
+            ServerPlayNetworking.send(member, payload);
+        }
+    }
+
+    private static SyncQuestStatePayload buildFullSnapshot(RpgWorldState state) {
+        List<SyncQuestStatePayload.QuestStateEntry> entries = new ArrayList<>();
+        state.getAllQuestStates().forEach((id, qs) -> entries.add(new SyncQuestStatePayload.QuestStateEntry(id, qs.name())));
+        return new SyncQuestStatePayload(true, state.getQuestChanges().getRevision(), entries);
+    }
+
+    // Returns null when the change log no longer covers the requested range
+    private static SyncQuestStatePayload buildDelta(RpgWorldState state, long sinceRevision) {
+        QuestChangeLog log = state.getQuestChanges();
+        Set<String> changed = new LinkedHashSet<>();
+        if (!log.collectSince(sinceRevision, changed)) return null;
+
+        List<SyncQuestStatePayload.QuestStateEntry> entries = new ArrayList<>(changed.size());
+        for (String fullId : changed) {
+            QuestState questState = state.getQuestState(fullId);
+            entries.add(new SyncQuestStatePayload.QuestStateEntry(fullId, questState.name()));
+        }
+        return new SyncQuestStatePayload(false, log.getRevision(), entries);
+    }
+}
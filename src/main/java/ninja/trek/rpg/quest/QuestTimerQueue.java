@@ -0,0 +1,51 @@
+package ninja.trek.rpg.quest;
+
+import java.util.*;
+
+/**
+ * Min-heap of quest auto-resolve deadlines keyed on game tick. Cancelled or
+ * rescheduled entries are dropped lazily when they reach the head.
+ */
+public class QuestTimerQueue {
+
+    private record Entry(String questFullId, long deadline) {}
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(Entry::deadline));
+    private final Map<String, Entry> live = new HashMap<>();
+
+    public void schedule(String questFullId, long deadline) {
+        Entry entry = new Entry(questFullId, deadline);
+        live.put(questFullId, entry);
+        queue.add(entry);
+    }
+
+    public void cancel(String questFullId) {
+        live.remove(questFullId);
+    }
+
+    public void clear() {
+        queue.clear();
+        live.clear();
+    }
+
+    public int size() {
+        return live.size();
+    }
+
+    public Long getDeadline(String questFullId) {
+        Entry entry = live.get(questFullId);
+        return entry != null ? entry.deadline() : null;
+    }
+
+    public List<String> pollExpired(long currentTick) {
+        List<String> expired = null;
+        while (!queue.isEmpty() && queue.peek().deadline() <= currentTick) {
+            Entry entry = queue.poll();
+            if (live.get(entry.questFullId()) != entry) continue; // stale
+            live.remove(entry.questFullId());
+            if (expired == null) expired = new ArrayList<>();
+            expired.add(entry.questFullId());
+        }
+        return expired != null ? expired : List.of();
+    }
+}
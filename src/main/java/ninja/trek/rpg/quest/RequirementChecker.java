@@ -1,44 +1,33 @@
 package ninja.trek.rpg.quest;
 
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.Identifier;
 import net.minecraft.server.level.ServerPlayer;
-import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
-import ninja.trek.rpg.data.BranchRequirements;
-import ninja.trek.rpg.data.QuestRequirements;
+import ninja.trek.rpg.data.compiled.*;
 import ninja.trek.rpg.state.QuestState;
 import ninja.trek.rpg.state.RpgWorldState;
 
-import java.util.Map;
-
 public class RequirementChecker {
 
-    public static boolean checkRequirements(QuestRequirements requirements, RpgWorldState state) {
+    public static boolean checkRequirements(CompiledQuestRequirements requirements, RpgWorldState state) {
+        // Interned ids are only usable when the state is keyed by the same table
+        boolean interned = requirements.symbols() == state.getSymbols();
+
         // Check completed quests
-        for (String questId : requirements.questsCompleted()) {
-            if (state.getQuestState(questId) != QuestState.COMPLETED) {
+        for (QuestRef quest : requirements.questsCompleted()) {
+            if (getQuestState(quest, state, interned) != QuestState.COMPLETED) {
                 return false;
             }
         }
 
         // Check faction stats
-        for (Map.Entry<String, String> entry : requirements.factionStats().entrySet()) {
-            String key = entry.getKey(); // format: "faction.stat"
-            String comparison = entry.getValue(); // format: ">= 5"
-
-            String[] parts = key.split("\\.", 2);
-            if (parts.length != 2) continue;
-
-            int currentValue = state.getFactionStat(parts[0], parts[1]);
-            if (!evaluateComparison(comparison, currentValue)) {
+        for (StatCheck check : requirements.factionStats()) {
+            if (!checkStat(check, state, interned)) {
                 return false;
             }
         }
 
         // Check global vars
-        for (Map.Entry<String, Boolean> entry : requirements.globalVars().entrySet()) {
-            if (state.getGlobalVar(entry.getKey()) != entry.getValue()) {
+        for (VarCheck check : requirements.globalVars()) {
+            if (getGlobalVar(check, state, interned) != check.expected()) {
                 return false;
             }
         }
@@ -46,52 +35,42 @@ public class RequirementChecker {
         return true;
     }
 
-    public static boolean checkBranchRequirements(BranchRequirements requirements, ServerPlayer player) {
-        for (Map.Entry<String, Integer> entry : requirements.itemRequirements().entrySet()) {
-            String itemId = entry.getKey();
-            int requiredCount = entry.getValue();
+    public static QuestState getQuestState(QuestRef quest, RpgWorldState state, boolean interned) {
+        return interned && quest.index() >= 0
+            ? state.getQuestState(quest.index())
+            : state.getQuestState(quest.fullId());
+    }
 
-            Item item = BuiltInRegistries.ITEM.getValue(Identifier.parse(itemId));
-            if (item == null) return false;
+    public static boolean checkStat(StatCheck check, RpgWorldState state, boolean interned) {
+        FactionStatRef ref = check.stat();
+        int value = interned && ref.isInterned()
+            ? state.getFactionStat(ref.factionIndex(), ref.statIndex())
+            : state.getFactionStat(ref.factionId(), ref.stat());
+        return check.comparison().test(value);
+    }
 
-            int count = 0;
-            int inventorySize = player.getInventory().getContainerSize();
-            for (int i = 0; i < inventorySize; i++) {
-                ItemStack stack = player.getInventory().getItem(i);
-                if (stack.is(item)) {
-                    count += stack.getCount();
-                }
-            }
-            if (count < requiredCount) return false;
+    public static boolean getGlobalVar(VarCheck check, RpgWorldState state, boolean interned) {
+        return interned && check.index() >= 0
+            ? state.getGlobalVar(check.index())
+            : state.getGlobalVar(check.key());
+    }
+
+    public static boolean checkBranchRequirements(CompiledBranchRequirements requirements, ServerPlayer player) {
+        for (ItemCheck check : requirements.items()) {
+            if (countItem(check, player) < check.count()) return false;
         }
         return true;
     }
 
+    public static int countItem(ItemCheck check, ServerPlayer player) {
+        return InventoryItemIndex.of(player).count(check.item());
+    }
+
     public static boolean evaluateComparison(String comparison, int value) {
-        comparison = comparison.trim();
-        if (comparison.startsWith(">=")) {
-            int target = Integer.parseInt(comparison.substring(2).trim());
-            return value >= target;
-        } else if (comparison.startsWith("<=")) {
-            int target = Integer.parseInt(comparison.substring(2).trim());
-            return value <= target;
-        } else if (comparison.startsWith(">")) {
-            int target = Integer.parseInt(comparison.substring(1).trim());
-            return value > target;
-        } else if (comparison.startsWith("<")) {
-            int target = Integer.parseInt(comparison.substring(1).trim());
-            return value < target;
-        } else if (comparison.startsWith("==")) {
-            int target = Integer.parseInt(comparison.substring(2).trim());
-            return value == target;
-        } else {
-            // Try as plain number (equals)
-            try {
-                int target = Integer.parseInt(comparison);
-                return value >= target;
-            } catch (NumberFormatException e) {
-                return false;
-            }
+        try {
+            return Comparison.parse(comparison).test(value);
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
 }
@@ -9,11 +9,21 @@ import java.util.*;
 
 public class PartyData {
 
+    private final UUID id;
     private UUID leader;
     private final Set<UUID> members = new HashSet<>();
     private final Set<UUID> pendingInvites = new HashSet<>();
     private final Set<UUID> pendingRequests = new HashSet<>();
 
+    public PartyData(UUID id) {
+        this.id = id;
+    }
+
+    // Also names the party's world state shard
+    public UUID getId() {
+        return id;
+    }
+
     public UUID getLeader() {
         return leader;
     }
@@ -75,6 +85,7 @@ public class PartyData {
 
     public CompoundTag toNbt() {
         CompoundTag tag = new CompoundTag();
+        tag.putString("Id", id.toString());
         if (leader != null) {
             tag.putString("Leader", leader.toString());
         }
@@ -85,7 +96,14 @@ public class PartyData {
     }
 
     public static PartyData fromNbt(CompoundTag tag) {
-        PartyData data = new PartyData();
+        UUID id;
+        try {
+            id = UUID.fromString(tag.getStringOr("Id", ""));
+        } catch (IllegalArgumentException e) {
+            id = UUID.randomUUID();
+        }
+
+        PartyData data = new PartyData(id);
         if (tag.contains("Leader")) {
             try {
                 data.leader = UUID.fromString(tag.getStringOr("Leader", ""));
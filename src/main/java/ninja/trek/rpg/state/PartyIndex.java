@@ -0,0 +1,157 @@
+package ninja.trek.rpg.state;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+
+import java.util.*;
+
+/**
+ * Party membership for the whole server. Each party's campaign progress lives in its own
+ * {@link RpgWorldState} shard; this file only maps players to parties.
+ */
+public class PartyIndex extends SavedData {
+
+    private static final String DATA_NAME = "mc_rpg_parties";
+
+    private final Map<UUID, PartyData> parties = new HashMap<>();
+    private final Map<UUID, UUID> partyByPlayer = new HashMap<>();
+    // Progress migrated from the old single-campaign save, handed to the first player who needs a party
+    private UUID unclaimedPartyId;
+    private boolean legacyMigrated;
+
+    public static final Codec<PartyIndex> CODEC = CompoundTag.CODEC.xmap(
+        PartyIndex::load,
+        index -> index.saveToTag(new CompoundTag())
+    );
+
+    public static final SavedDataType<PartyIndex> TYPE = new SavedDataType<>(
+        DATA_NAME, PartyIndex::new, CODEC, null
+    );
+
+    public static PartyIndex get(MinecraftServer server) {
+        return server.getLevel(Level.OVERWORLD).getDataStorage().computeIfAbsent(TYPE);
+    }
+
+    public PartyIndex() {}
+
+    public PartyData getParty(UUID partyId) {
+        return parties.get(partyId);
+    }
+
+    public PartyData getPartyOf(UUID player) {
+        UUID partyId = partyByPlayer.get(player);
+        return partyId != null ? parties.get(partyId) : null;
+    }
+
+    public Collection<PartyData> getParties() {
+        return Collections.unmodifiableCollection(parties.values());
+    }
+
+    public PartyData getOrCreatePartyOf(UUID player) {
+        PartyData party = getPartyOf(player);
+        if (party != null) return party;
+
+        if (unclaimedPartyId != null) {
+            party = parties.get(unclaimedPartyId);
+            unclaimedPartyId = null;
+        }
+        if (party == null) {
+            party = new PartyData(UUID.randomUUID());
+            parties.put(party.getId(), party);
+        }
+
+        party.setLeader(player);
+        partyByPlayer.put(player, party.getId());
+        setDirty();
+        return party;
+    }
+
+    public PartyData findPartyInviting(UUID player) {
+        for (PartyData party : parties.values()) {
+            if (party.getPendingInvites().contains(player)) return party;
+        }
+        return null;
+    }
+
+    public void addMember(PartyData party, UUID player) {
+        PartyData previous = getPartyOf(player);
+        if (previous == party) return;
+        if (previous != null) {
+            removeMember(previous, player);
+        }
+
+        party.addMember(player);
+        partyByPlayer.put(player, party.getId());
+        setDirty();
+    }
+
+    public void removeMember(PartyData party, UUID player) {
+        party.removeMember(player);
+        partyByPlayer.remove(player, party.getId());
+        // The party's shard stays on disk; an empty party just can't be reached any more
+        if (party.getMembers().isEmpty()) {
+            parties.remove(party.getId());
+        }
+        setDirty();
+    }
+
+    boolean isLegacyMigrated() {
+        return legacyMigrated;
+    }
+
+    // Not yet marked migrated; that waits until the party's shard is on disk. Repeating an
+    // interrupted migration keeps the party as it is now
+    PartyData adoptLegacyParty(PartyData party) {
+        PartyData existing = parties.get(party.getId());
+        if (existing != null) return existing;
+
+        parties.put(party.getId(), party);
+        for (UUID member : party.getMembers()) {
+            partyByPlayer.put(member, party.getId());
+        }
+        if (party.getMembers().isEmpty()) {
+            unclaimedPartyId = party.getId();
+        }
+        setDirty();
+        return party;
+    }
+
+    void markLegacyMigrated() {
+        legacyMigrated = true;
+        setDirty();
+    }
+
+    private CompoundTag saveToTag(CompoundTag root) {
+        ListTag list = new ListTag();
+        parties.values().forEach(party -> list.add(party.toNbt()));
+        root.put("Parties", list);
+        if (unclaimedPartyId != null) {
+            root.putString("Unclaimed", unclaimedPartyId.toString());
+        }
+        root.putBoolean("LegacyMigrated", legacyMigrated);
+        return root;
+    }
+
+    private static PartyIndex load(CompoundTag root) {
+        PartyIndex index = new PartyIndex();
+        ListTag list = root.getListOrEmpty("Parties");
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) instanceof CompoundTag tag) {
+                PartyData party = PartyData.fromNbt(tag);
+                index.parties.put(party.getId(), party);
+                party.getMembers().forEach(member -> index.partyByPlayer.put(member, party.getId()));
+            }
+        }
+        try {
+            String unclaimed = root.getStringOr("Unclaimed", "");
+            index.unclaimedPartyId = unclaimed.isEmpty() ? null : UUID.fromString(unclaimed);
+        } catch (IllegalArgumentException ignored) {}
+        index.legacyMigrated = root.getBooleanOr("LegacyMigrated", false);
+        return index;
+    }
+}
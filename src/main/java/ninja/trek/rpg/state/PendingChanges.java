@@ -0,0 +1,55 @@
+package ninja.trek.rpg.state;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Requirement-relevant keys touched since the last availability re-evaluation.
+ * Not persisted; drained by QuestManager after each batch of mutations.
+ */
+public class PendingChanges {
+
+    private final Set<String> quests = new HashSet<>();
+    private final Set<String> factionStats = new HashSet<>(); // "faction.stat"
+    private final Set<String> globalVars = new HashSet<>();
+
+    void markQuest(String fullId) {
+        quests.add(fullId);
+    }
+
+    void markFactionStat(String factionId, String stat) {
+        factionStats.add(factionId + "." + stat);
+    }
+
+    void markGlobalVar(String key) {
+        globalVars.add(key);
+    }
+
+    public Set<String> getQuests() {
+        return Collections.unmodifiableSet(quests);
+    }
+
+    public Set<String> getFactionStats() {
+        return Collections.unmodifiableSet(factionStats);
+    }
+
+    public Set<String> getGlobalVars() {
+        return Collections.unmodifiableSet(globalVars);
+    }
+
+    public boolean isEmpty() {
+        return quests.isEmpty() && factionStats.isEmpty() && globalVars.isEmpty();
+    }
+
+    PendingChanges copyAndClear() {
+        PendingChanges copy = new PendingChanges();
+        copy.quests.addAll(quests);
+        copy.factionStats.addAll(factionStats);
+        copy.globalVars.addAll(globalVars);
+        quests.clear();
+        factionStats.clear();
+        globalVars.clear();
+        return copy;
+    }
+}
@@ -0,0 +1,359 @@
+package ninja.trek.rpg.state;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash trie map. {@link #with} and {@link #without} return a new map that shares
+ * everything but the path to the changed key with the old one, so updating a large map costs
+ * O(log n) rather than a full copy. Null keys and values are not allowed.
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_SHIFT = 32; // past this every remaining key shares the full hash
+
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    // null when empty, otherwise a Leaf or a Node
+    private final Object root;
+    private final int size;
+
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    public static <K, V> PersistentMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof PersistentMap<?, ?>) {
+            @SuppressWarnings("unchecked")
+            PersistentMap<K, V> persistent = (PersistentMap<K, V>) map;
+            return persistent;
+        }
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            result = result.with(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * This map with the key set to the value. Returns this map if it already held an equal value.
+     */
+    public PersistentMap<K, V> with(K key, V value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        boolean[] added = new boolean[1];
+        Object next = put(root, 0, new Leaf<>(key.hashCode(), key, value), added);
+        return next == root ? this : new PersistentMap<>(next, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * This map without the key. Returns this map if the key wasn't present.
+     */
+    public PersistentMap<K, V> without(Object key) {
+        if (key == null || root == null) return this;
+        Object next = remove(root, 0, key.hashCode(), key);
+        if (next == root) return this;
+        return next == null ? empty() : new PersistentMap<>(next, size - 1);
+    }
+
+    @Override
+    public V get(Object key) {
+        Leaf<K, V> leaf = find(key);
+        return leaf != null ? leaf.getValue() : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new EntryIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Calls the action for every key whose value differs from the one in {@code previous}, with
+     * a null value for keys that are gone. Subtrees the two maps share are skipped, so diffing
+     * two versions of the same map costs about O(changes log n).
+     */
+    public void diff(PersistentMap<K, V> previous, BiConsumer<? super K, ? super V> action) {
+        diff(root, previous.root, 0, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Leaf<K, V> find(Object key) {
+        if (key == null) return null;
+        int hash = key.hashCode();
+        Object current = root;
+        for (int shift = 0; current != null; shift += BITS) {
+            if (current instanceof Leaf<?, ?> leaf) {
+                return leaf.getKey().equals(key) ? (Leaf<K, V>) leaf : null;
+            }
+            Node node = (Node) current;
+            if (shift >= MAX_SHIFT) {
+                for (Object child : node.children) {
+                    if (((Leaf<?, ?>) child).getKey().equals(key)) return (Leaf<K, V>) child;
+                }
+                return null;
+            }
+            int bit = bit(hash, shift);
+            if ((node.bitmap & bit) == 0) return null;
+            current = node.children[node.index(bit)];
+        }
+        return null;
+    }
+
+    // --- Trie operations; each returns the node unchanged when there is nothing to do ---
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & MASK);
+    }
+
+    private static Object put(Object current, int shift, Leaf<?, ?> leaf, boolean[] added) {
+        if (current == null) {
+            added[0] = true;
+            return leaf;
+        }
+        if (current instanceof Leaf<?, ?> existing) {
+            if (existing.getKey().equals(leaf.getKey())) {
+                return existing.getValue().equals(leaf.getValue()) ? existing : leaf;
+            }
+            added[0] = true;
+            return merge(existing, leaf, shift);
+        }
+
+        Node node = (Node) current;
+        if (shift >= MAX_SHIFT) {
+            Object[] children = node.children;
+            for (int i = 0; i < children.length; i++) {
+                Leaf<?, ?> existing = (Leaf<?, ?>) children[i];
+                if (existing.getKey().equals(leaf.getKey())) {
+                    if (existing.getValue().equals(leaf.getValue())) return node;
+                    return node.replaced(i, leaf);
+                }
+            }
+            added[0] = true;
+            Object[] grown = new Object[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, children.length);
+            grown[children.length] = leaf;
+            return new Node(0, grown);
+        }
+
+        int bit = bit(leaf.hash, shift);
+        int index = node.index(bit);
+        Object child = (node.bitmap & bit) != 0 ? node.children[index] : null;
+        Object replacement = put(child, shift + BITS, leaf, added);
+        if (replacement == child) return node;
+        return child == null ? node.inserted(bit, index, replacement) : node.replaced(index, replacement);
+    }
+
+    private static Object merge(Leaf<?, ?> a, Leaf<?, ?> b, int shift) {
+        if (shift >= MAX_SHIFT) return new Node(0, new Object[]{a, b});
+        int bitA = bit(a.hash, shift);
+        int bitB = bit(b.hash, shift);
+        if (bitA == bitB) return new Node(bitA, new Object[]{merge(a, b, shift + BITS)});
+        return Integer.compareUnsigned(bitA, bitB) < 0
+            ? new Node(bitA | bitB, new Object[]{a, b})
+            : new Node(bitA | bitB, new Object[]{b, a});
+    }
+
+    // A node left with a single leaf collapses into it; a leaf is valid at any depth on its hash path
+    private static Object remove(Object current, int shift, int hash, Object key) {
+        if (current instanceof Leaf<?, ?> leaf) {
+            return leaf.getKey().equals(key) ? null : leaf;
+        }
+
+        Node node = (Node) current;
+        if (shift >= MAX_SHIFT) {
+            Object[] children = node.children;
+            for (int i = 0; i < children.length; i++) {
+                if (((Leaf<?, ?>) children[i]).getKey().equals(key)) {
+                    if (children.length == 2) return children[1 - i];
+                    return node.removed(0, i);
+                }
+            }
+            return node;
+        }
+
+        int bit = bit(hash, shift);
+        if ((node.bitmap & bit) == 0) return node;
+        int index = node.index(bit);
+        Object child = node.children[index];
+        Object replacement = remove(child, shift + BITS, hash, key);
+        if (replacement == child) return node;
+
+        if (replacement == null) {
+            if (node.children.length == 1) return null;
+            if (node.children.length == 2 && node.children[1 - index] instanceof Leaf<?, ?> other) return other;
+            return node.removed(bit, index);
+        }
+        if (node.children.length == 1 && replacement instanceof Leaf<?, ?>) return replacement;
+        return node.replaced(index, replacement);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEach(Object current, BiConsumer<? super K, ? super V> action) {
+        if (current == null) return;
+        if (current instanceof Leaf<?, ?> leaf) {
+            action.accept((K) leaf.getKey(), (V) leaf.getValue());
+            return;
+        }
+        for (Object child : ((Node) current).children) {
+            forEach(child, action);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void diff(Object current, Object previous, int shift, BiConsumer<? super K, ? super V> action) {
+        if (current == previous) return;
+        if (current instanceof Node now && previous instanceof Node before && shift < MAX_SHIFT) {
+            int bits = now.bitmap | before.bitmap;
+            while (bits != 0) {
+                int bit = bits & -bits;
+                bits &= bits - 1;
+                diff((now.bitmap & bit) != 0 ? now.children[now.index(bit)] : null,
+                    (before.bitmap & bit) != 0 ? before.children[before.index(bit)] : null,
+                    shift + BITS, action);
+            }
+            return;
+        }
+
+        // The shapes differ here, which only happens close to a change, so the subtrees are small
+        Map<Object, Object> old = new HashMap<>();
+        forEach(previous, old::put);
+        forEach(current, (key, value) -> {
+            if (!value.equals(old.remove(key))) action.accept((K) key, (V) value);
+        });
+        old.keySet().forEach(key -> action.accept((K) key, null));
+    }
+
+    private static final class Leaf<K, V> extends AbstractMap.SimpleImmutableEntry<K, V> {
+        final int hash;
+
+        Leaf(int hash, K key, V value) {
+            super(key, value);
+            this.hash = hash;
+        }
+    }
+
+    // Children are ordered by bit position; from MAX_SHIFT on the bitmap is unused and all
+    // children are leaves with the same hash
+    private static final class Node {
+        final int bitmap;
+        final Object[] children;
+
+        Node(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Node replaced(int index, Object child) {
+            Object[] copy = children.clone();
+            copy[index] = child;
+            return new Node(bitmap, copy);
+        }
+
+        Node inserted(int bit, int index, Object child) {
+            Object[] copy = new Object[children.length + 1];
+            System.arraycopy(children, 0, copy, 0, index);
+            copy[index] = child;
+            System.arraycopy(children, index, copy, index + 1, children.length - index);
+            return new Node(bitmap | bit, copy);
+        }
+
+        Node removed(int bit, int index) {
+            Object[] copy = new Object[children.length - 1];
+            System.arraycopy(children, 0, copy, 0, index);
+            System.arraycopy(children, index + 1, copy, index, children.length - index - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+    }
+
+    private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+        // Deepest possible path: one node per BITS of hash plus a collision node
+        private final Object[][] stack = new Object[MAX_SHIFT / BITS + 2][];
+        private final int[] positions = new int[stack.length];
+        private int depth;
+        private Leaf<?, ?> next;
+
+        EntryIterator(Object root) {
+            if (root instanceof Leaf<?, ?> leaf) {
+                next = leaf;
+            } else if (root != null) {
+                stack[depth++] = ((Node) root).children;
+                advance();
+            }
+        }
+
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                Object[] children = stack[depth - 1];
+                if (positions[depth - 1] == children.length) {
+                    positions[--depth] = 0;
+                    continue;
+                }
+                Object child = children[positions[depth - 1]++];
+                if (child instanceof Leaf<?, ?> leaf) {
+                    next = leaf;
+                    return;
+                }
+                stack[depth++] = ((Node) child).children;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<K, V> next() {
+            if (next == null) throw new NoSuchElementException();
+            Leaf<?, ?> current = next;
+            advance();
+            return (Map.Entry<K, V>) current;
+        }
+    }
+}
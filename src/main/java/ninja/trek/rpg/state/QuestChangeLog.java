@@ -0,0 +1,55 @@
+package ninja.trek.rpg.state;
+
+import java.util.Collection;
+
+/**
+ * Bounded, revision-stamped log of quest state changes. Lets the server send clients only
+ * what changed since the revision they acknowledged; older revisions fall off the end and
+ * force a full snapshot instead.
+ */
+public class QuestChangeLog {
+
+    private final long[] revisions;
+    private final String[] questIds;
+    private long revision;
+    private int size;
+    private int head; // next write slot
+
+    public QuestChangeLog(int capacity) {
+        this.revisions = new long[capacity];
+        this.questIds = new String[capacity];
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    long record(String questFullId) {
+        revision++;
+        revisions[head] = revision;
+        questIds[head] = questFullId;
+        head = (head + 1) % revisions.length;
+        if (size < revisions.length) size++;
+        return revision;
+    }
+
+    /**
+     * Adds every quest changed after {@code sinceRevision} to {@code out}.
+     * Returns false if the log no longer reaches back that far.
+     */
+    public boolean collectSince(long sinceRevision, Collection<String> out) {
+        if (sinceRevision > revision) return false;
+        if (sinceRevision == revision) return true;
+
+        long oldest = size == 0 ? revision + 1 : revisions[(head - size + revisions.length) % revisions.length];
+        if (sinceRevision + 1 < oldest) return false;
+
+        for (int i = size; i > 0; i--) {
+            int slot = (head - i + revisions.length) % revisions.length;
+            if (revisions[slot] > sinceRevision) {
+                out.add(questIds[slot]);
+            }
+        }
+        return true;
+    }
+}
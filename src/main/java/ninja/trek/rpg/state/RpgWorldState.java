@@ -1,110 +1,403 @@
 package ninja.trek.rpg.state;
 
 import com.mojang.serialization.Codec;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
-import net.minecraft.nbt.StringTag;
-import net.minecraft.nbt.Tag;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.server.level.ServerLevel;
-import net.minecraft.world.level.Level;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.saveddata.SavedData;
 import net.minecraft.world.level.saveddata.SavedDataType;
-import net.minecraft.world.level.storage.DimensionDataStorage;
-import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.data.loader.SymbolTable;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class RpgWorldState extends SavedData {
 
-    private static final String DATA_NAME = "mc_rpg_world_state";
+    private static final String DATA_PREFIX = "mc_rpg_party_";
+
+    private static final QuestState[] QUEST_STATES = QuestState.values();
+    private static final byte UNSET = 0;
+    private static final byte VAR_FALSE = 1;
+    private static final byte VAR_TRUE = 2;
+    private static final int NO_LOCATION = -1;
+    private static final long NO_TIMER = Long.MIN_VALUE;
+    private static final int QUEST_CHANGE_LOG_SIZE = 4096;
+
+    private enum Section {
+        QUEST_STATES,
+        COMPLETED_BRANCHES,
+        QUEST_TIMERS,
+        FACTION_STATS,
+        LOCATION_STATES,
+        GLOBAL_VARS,
+        CHARACTER_EXTRAS,
+        CHARACTER_LOCATIONS
+    }
+
+    private UUID partyId; // runtime only; the shard's file name carries it
+
+    // Dense storage indexed by ids from the bound SymbolTable
+    private SymbolTable symbols = SymbolTable.EMPTY;
+    private byte[] questStates = new byte[0]; // QuestState ordinal + 1, UNSET if absent
+    private String[] completedBranches = new String[0];
+    private long[] questTimers = new long[0];
+    private int[][] factionStats = new int[0][];
+    private String[] locationStates = new String[0];
+    private byte[] globalVars = new byte[0];
+    private int[] characterLocations = new int[0]; // location id
+    private RpgDataRegistry boundRegistry = RpgDataRegistry.EMPTY;
+
+    // Per character id: quests involving them that are ACTIVE / AVAILABLE, for NPC interaction lookups
+    private IntLinkedOpenHashSet[] activeByCharacter = new IntLinkedOpenHashSet[0];
+    private IntLinkedOpenHashSet[] availableByCharacter = new IntLinkedOpenHashSet[0];
+
+    // Keys the bound SymbolTable does not know (removed content, ad-hoc vars); kept so nothing is lost on save
+    private final Map<String, QuestState> extraQuestStates = new HashMap<>();
+    private final Map<String, String> extraCompletedBranches = new HashMap<>();
+    private final Map<String, Long> extraQuestTimers = new HashMap<>();
+    private final Map<String, Map<String, Integer>> extraFactionStats = new HashMap<>();
+    private final Map<String, String> extraLocationStates = new HashMap<>();
+    private final Map<String, Boolean> extraGlobalVars = new HashMap<>();
+    private final Map<String, String> extraCharacterLocations = new HashMap<>();
+
+    // Reverse of the character locations: location -> characters there
+    private IntLinkedOpenHashSet[] charactersByLocation = new IntLinkedOpenHashSet[0];
+    private final Map<String, Set<String>> extraCharactersByLocation = new HashMap<>();
 
-    private final PartyData party = new PartyData();
-    private final Map<String, QuestState> questStates = new HashMap<>();
-    private final Map<String, String> completedBranches = new HashMap<>();
-    private final Map<String, Long> activeQuestTimers = new HashMap<>();
-    private final Map<String, Map<String, Integer>> factionStats = new HashMap<>();
-    private final Map<String, String> locationStates = new HashMap<>();
-    private final Map<String, Boolean> globalVars = new HashMap<>();
     private final Map<String, List<CharacterExtra>> characterExtras = new HashMap<>();
-    private final Map<String, String> characterLocations = new HashMap<>();
+    private final PendingChanges pendingChanges = new PendingChanges();
+
+    // Runtime only; clients always get a full snapshot after joining
+    private final QuestChangeLog questChanges = new QuestChangeLog(QUEST_CHANGE_LOG_SIZE);
+    // Last journal record covered by the loaded snapshot
+    private long journalSeq;
+    private StateJournal journal; // null while replaying
+
+    // Keys changed since the last published snapshot, per section
+    private final EnumMap<Section, Set<String>> unpublishedKeys = new EnumMap<>(Section.class);
+    private boolean unpublished = true;
+    private volatile WorldStateSnapshot snapshot;
+    // Saves go through WorldStateWriter rather than the vanilla dirty flag, so the server
+    // thread never encodes NBT
+    private boolean unsaved;
 
     public static final Codec<RpgWorldState> CODEC = CompoundTag.CODEC.xmap(
         RpgWorldState::load,
-        state -> {
-            CompoundTag tag = new CompoundTag();
-            return state.saveToTag(tag);
-        }
+        state -> WorldStateEncoder.encodeFresh(state.buildSnapshot(null, 0))
     );
 
-    public static final SavedDataType<RpgWorldState> TYPE = new SavedDataType<>(
-        DATA_NAME, RpgWorldState::new, CODEC, null
-    );
+    static SavedDataType<RpgWorldState> typeFor(UUID partyId) {
+        return new SavedDataType<>(dataNameFor(partyId), RpgWorldState::new, CODEC, null);
+    }
+
+    static String dataNameFor(UUID partyId) {
+        return DATA_PREFIX + partyId;
+    }
+
+    /**
+     * The shard holding the given party's campaign, loading it on first use.
+     */
+    public static RpgWorldState get(MinecraftServer server, UUID partyId) {
+        return WorldStateShards.get(server, partyId);
+    }
+
+    /**
+     * The shard of the player's party. Players without a party get a new solo party.
+     */
+    public static RpgWorldState get(ServerPlayer player) {
+        MinecraftServer server = player.level().getServer();
+        return WorldStateShards.get(server, PartyIndex.get(server).getOrCreatePartyOf(player.getUUID()).getId());
+    }
+
+    public RpgWorldState() {
+        for (Section section : Section.values()) {
+            unpublishedKeys.put(section, new HashSet<>());
+        }
+    }
+
+    // Symbols
+
+    /**
+     * The table the int-keyed accessors are indexed by. Always the current registry's table;
+     * state is re-keyed automatically after a data reload.
+     */
+    public SymbolTable getSymbols() {
+        ensureBound();
+        return symbols;
+    }
+
+    private void ensureBound() {
+        RpgDataRegistry current = RpgDataRegistry.getInstance();
+        if (current.getSymbols() != symbols) {
+            rebind(current);
+        }
+    }
+
+    private void rebind(RpgDataRegistry next) {
+        // Round-trip through the string-keyed form so entries move between dense and overflow storage
+        CompoundTag data = WorldStateEncoder.encodeFresh(buildSnapshot(null, 0));
+        bind(next);
+        loadSections(data);
+    }
 
-    public static RpgWorldState get(MinecraftServer server) {
-        ServerLevel overworld = server.getLevel(Level.OVERWORLD);
-        DimensionDataStorage storage = overworld.getDataStorage();
-        return storage.computeIfAbsent(TYPE);
+    private void bind(RpgDataRegistry registry) {
+        SymbolTable table = registry.getSymbols();
+        boundRegistry = registry;
+        symbols = table;
+        int quests = table.quests().size();
+        questStates = new byte[quests];
+        completedBranches = new String[quests];
+        questTimers = new long[quests];
+        Arrays.fill(questTimers, NO_TIMER);
+        factionStats = new int[table.factions().size()][table.stats().size()];
+        locationStates = new String[table.locations().size()];
+        globalVars = new byte[table.globalVars().size()];
+        characterLocations = new int[table.characters().size()];
+        Arrays.fill(characterLocations, NO_LOCATION);
+        activeByCharacter = new IntLinkedOpenHashSet[table.characters().size()];
+        availableByCharacter = new IntLinkedOpenHashSet[table.characters().size()];
+        charactersByLocation = new IntLinkedOpenHashSet[table.locations().size()];
+
+        extraQuestStates.clear();
+        extraCompletedBranches.clear();
+        extraQuestTimers.clear();
+        extraFactionStats.clear();
+        extraLocationStates.clear();
+        extraGlobalVars.clear();
+        extraCharacterLocations.clear();
+        extraCharactersByLocation.clear();
     }
 
-    public RpgWorldState() {}
+    public UUID getPartyId() {
+        return partyId;
+    }
+
+    void setPartyId(UUID partyId) {
+        this.partyId = partyId;
+    }
 
-    // Party
-    public PartyData getParty() {
-        return party;
+    long getJournalSeq() {
+        return journalSeq;
+    }
+
+    StateJournal getJournal() {
+        return journal;
+    }
+
+    void attachJournal(StateJournal journal) {
+        this.journal = journal;
+    }
+
+    void closeJournal() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
     }
 
     // Quest States
     public QuestState getQuestState(String fullId) {
-        return questStates.getOrDefault(fullId, QuestState.BLOCKED);
+        ensureBound();
+        int id = symbols.quests().indexOf(fullId);
+        if (id >= 0) return getQuestState(id);
+        return extraQuestStates.getOrDefault(fullId, QuestState.BLOCKED);
+    }
+
+    public QuestState getQuestState(int questId) {
+        byte value = questStates[questId];
+        return value == UNSET ? QuestState.BLOCKED : QUEST_STATES[value - 1];
+    }
+
+    public boolean hasQuestState(String fullId) {
+        ensureBound();
+        int id = symbols.quests().indexOf(fullId);
+        return id >= 0 ? questStates[id] != UNSET : extraQuestStates.containsKey(fullId);
     }
 
     public void setQuestState(String fullId, QuestState state) {
-        questStates.put(fullId, state);
-        setDirty();
+        ensureBound();
+        QuestState previous = putQuestState(fullId, state);
+        if (previous != state) {
+            questChanges.record(fullId);
+            if (journal != null) journal.questState(fullId, state);
+        }
+        // Requirements only ever test for COMPLETED
+        if ((previous == QuestState.COMPLETED) != (state == QuestState.COMPLETED)) {
+            pendingChanges.markQuest(fullId);
+        }
+        markChanged(Section.QUEST_STATES, fullId);
+    }
+
+    private QuestState putQuestState(String fullId, QuestState state) {
+        int id = symbols.quests().indexOf(fullId);
+        if (id < 0) return extraQuestStates.put(fullId, state);
+
+        byte previous = questStates[id];
+        questStates[id] = (byte) (state.ordinal() + 1);
+        QuestState previousState = previous == UNSET ? null : QUEST_STATES[previous - 1];
+        if (previousState != state) {
+            indexQuestState(id, state);
+        }
+        return previousState;
+    }
+
+    private void indexQuestState(int questId, QuestState state) {
+        for (int character : boundRegistry.getCharacterIdsForQuest(questId)) {
+            updateIndex(activeByCharacter, character, questId, state == QuestState.ACTIVE);
+            updateIndex(availableByCharacter, character, questId, state == QuestState.AVAILABLE);
+        }
+    }
+
+    private static void updateIndex(IntLinkedOpenHashSet[] index, int character, int questId, boolean present) {
+        if (present) {
+            if (index[character] == null) index[character] = new IntLinkedOpenHashSet();
+            index[character].add(questId);
+        } else if (index[character] != null) {
+            index[character].remove(questId);
+        }
+    }
+
+    /**
+     * The quest a character should talk about: one of their ACTIVE quests if any, otherwise an
+     * AVAILABLE one. Null if neither.
+     */
+    public String getInteractionQuest(String characterId) {
+        ensureBound();
+        int id = symbols.characters().indexOf(characterId);
+        if (id < 0) return null;
+
+        IntLinkedOpenHashSet quests = activeByCharacter[id];
+        if (quests == null || quests.isEmpty()) quests = availableByCharacter[id];
+        if (quests == null || quests.isEmpty()) return null;
+        return symbols.quests().nameOf(quests.firstInt());
     }
 
     public Map<String, QuestState> getAllQuestStates() {
-        return Collections.unmodifiableMap(questStates);
+        ensureBound();
+        return collectQuestStates();
+    }
+
+    private Map<String, QuestState> collectQuestStates() {
+        Map<String, QuestState> result = new HashMap<>(extraQuestStates);
+        for (int i = 0; i < questStates.length; i++) {
+            if (questStates[i] != UNSET) {
+                result.put(symbols.quests().nameOf(i), QUEST_STATES[questStates[i] - 1]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    public QuestChangeLog getQuestChanges() {
+        return questChanges;
     }
 
     // Completed Branches
     public String getCompletedBranch(String fullId) {
-        return completedBranches.get(fullId);
+        ensureBound();
+        return completedBranchEntry(fullId);
     }
 
     public void setCompletedBranch(String fullId, String branchId) {
-        completedBranches.put(fullId, branchId);
-        setDirty();
+        ensureBound();
+        putCompletedBranch(fullId, branchId);
+        if (journal != null) journal.completedBranch(fullId, branchId);
+        markChanged(Section.COMPLETED_BRANCHES, fullId);
+    }
+
+    private void putCompletedBranch(String fullId, String branchId) {
+        int id = symbols.quests().indexOf(fullId);
+        if (id >= 0) {
+            completedBranches[id] = branchId;
+        } else {
+            extraCompletedBranches.put(fullId, branchId);
+        }
     }
 
     // Quest Timers
     public Long getQuestTimer(String fullId) {
-        return activeQuestTimers.get(fullId);
+        ensureBound();
+        return questTimerEntry(fullId);
     }
 
     public void setQuestTimer(String fullId, long tick) {
-        activeQuestTimers.put(fullId, tick);
-        setDirty();
+        ensureBound();
+        putQuestTimer(fullId, tick);
+        if (journal != null) journal.questTimer(fullId, tick);
+        markChanged(Section.QUEST_TIMERS, fullId);
+    }
+
+    private void putQuestTimer(String fullId, long tick) {
+        int id = symbols.quests().indexOf(fullId);
+        if (id >= 0) {
+            questTimers[id] = tick;
+        } else {
+            extraQuestTimers.put(fullId, tick);
+        }
     }
 
     public void removeQuestTimer(String fullId) {
-        activeQuestTimers.remove(fullId);
-        setDirty();
+        ensureBound();
+        int id = symbols.quests().indexOf(fullId);
+        if (id >= 0) {
+            questTimers[id] = NO_TIMER;
+        } else {
+            extraQuestTimers.remove(fullId);
+        }
+        if (journal != null) journal.questTimerRemoved(fullId);
+        markChanged(Section.QUEST_TIMERS, fullId);
     }
 
     public Map<String, Long> getAllQuestTimers() {
-        return Collections.unmodifiableMap(activeQuestTimers);
+        ensureBound();
+        return collectQuestTimers();
+    }
+
+    private Map<String, Long> collectQuestTimers() {
+        Map<String, Long> result = new HashMap<>(extraQuestTimers);
+        for (int i = 0; i < questTimers.length; i++) {
+            if (questTimers[i] != NO_TIMER) {
+                result.put(symbols.quests().nameOf(i), questTimers[i]);
+            }
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     // Faction Stats
     public int getFactionStat(String factionId, String stat) {
-        return factionStats.getOrDefault(factionId, Map.of()).getOrDefault(stat, 0);
+        ensureBound();
+        int faction = symbols.factions().indexOf(factionId);
+        int statId = symbols.stats().indexOf(stat);
+        if (faction >= 0 && statId >= 0) return factionStats[faction][statId];
+        return extraFactionStats.getOrDefault(factionId, Map.of()).getOrDefault(stat, 0);
+    }
+
+    public int getFactionStat(int factionId, int statId) {
+        return factionStats[factionId][statId];
     }
 
     public void setFactionStat(String factionId, String stat, int value) {
-        factionStats.computeIfAbsent(factionId, k -> new HashMap<>()).put(stat, value);
-        setDirty();
+        ensureBound();
+        if (putFactionStat(factionId, stat, value) != value) {
+            pendingChanges.markFactionStat(factionId, stat);
+            // Logged as the resulting value, not the delta, so replaying twice is harmless
+            if (journal != null) journal.factionStat(factionId, stat, value);
+        }
+        markChanged(Section.FACTION_STATS, factionId);
+    }
+
+    private int putFactionStat(String factionId, String stat, int value) {
+        int faction = symbols.factions().indexOf(factionId);
+        int statId = symbols.stats().indexOf(stat);
+        if (faction >= 0 && statId >= 0) {
+            int previous = factionStats[faction][statId];
+            factionStats[faction][statId] = value;
+            return previous;
+        }
+        Integer previous = extraFactionStats.computeIfAbsent(factionId, k -> new HashMap<>()).put(stat, value);
+        return previous != null ? previous : 0;
     }
 
     public void addFactionStat(String factionId, String stat, int delta) {
@@ -112,32 +405,102 @@ public class RpgWorldState extends SavedData {
         setFactionStat(factionId, stat, current + delta);
     }
 
+    // Unset and zero are equivalent; only non-zero stats are listed
     public Map<String, Map<String, Integer>> getAllFactionStats() {
-        return Collections.unmodifiableMap(factionStats);
+        ensureBound();
+        return collectFactionStats();
+    }
+
+    private Map<String, Map<String, Integer>> collectFactionStats() {
+        Map<String, Map<String, Integer>> result = new HashMap<>();
+        extraFactionStats.forEach((factionId, stats) -> result.put(factionId, new HashMap<>(stats)));
+        for (int f = 0; f < factionStats.length; f++) {
+            for (int s = 0; s < factionStats[f].length; s++) {
+                if (factionStats[f][s] != 0) {
+                    result.computeIfAbsent(symbols.factions().nameOf(f), k -> new HashMap<>())
+                        .put(symbols.stats().nameOf(s), factionStats[f][s]);
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
     }
 
     // Location States
     public String getLocationState(String locationId) {
-        return locationStates.get(locationId);
+        ensureBound();
+        return locationStateEntry(locationId);
     }
 
     public void setLocationState(String locationId, String state) {
-        locationStates.put(locationId, state);
-        setDirty();
+        ensureBound();
+        putLocationState(locationId, state);
+        if (journal != null) journal.locationState(locationId, state);
+        markChanged(Section.LOCATION_STATES, locationId);
+    }
+
+    private void putLocationState(String locationId, String state) {
+        int id = symbols.locations().indexOf(locationId);
+        if (id >= 0) {
+            locationStates[id] = state;
+        } else {
+            extraLocationStates.put(locationId, state);
+        }
     }
 
     // Global Vars
     public boolean getGlobalVar(String key) {
-        return globalVars.getOrDefault(key, false);
+        ensureBound();
+        int id = symbols.globalVars().indexOf(key);
+        if (id >= 0) return globalVars[id] == VAR_TRUE;
+        return extraGlobalVars.getOrDefault(key, false);
+    }
+
+    public boolean getGlobalVar(int varId) {
+        return globalVars[varId] == VAR_TRUE;
     }
 
     public void setGlobalVar(String key, boolean value) {
-        globalVars.put(key, value);
-        setDirty();
+        ensureBound();
+        if (putGlobalVar(key, value) != value) {
+            pendingChanges.markGlobalVar(key);
+        }
+        if (journal != null) journal.globalVar(key, value);
+        markChanged(Section.GLOBAL_VARS, key);
+    }
+
+    private boolean putGlobalVar(String key, boolean value) {
+        int id = symbols.globalVars().indexOf(key);
+        if (id >= 0) {
+            boolean previous = globalVars[id] == VAR_TRUE;
+            globalVars[id] = value ? VAR_TRUE : VAR_FALSE;
+            return previous;
+        }
+        Boolean previous = extraGlobalVars.put(key, value);
+        return previous != null && previous;
     }
 
     public Map<String, Boolean> getAllGlobalVars() {
-        return Collections.unmodifiableMap(globalVars);
+        ensureBound();
+        return collectGlobalVars();
+    }
+
+    private Map<String, Boolean> collectGlobalVars() {
+        Map<String, Boolean> result = new HashMap<>(extraGlobalVars);
+        for (int i = 0; i < globalVars.length; i++) {
+            if (globalVars[i] != UNSET) {
+                result.put(symbols.globalVars().nameOf(i), globalVars[i] == VAR_TRUE);
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    // Pending requirement changes
+    public boolean hasPendingChanges() {
+        return !pendingChanges.isEmpty();
+    }
+
+    public PendingChanges drainPendingChanges() {
+        return pendingChanges.copyAndClear();
     }
 
     // Character Extras
@@ -147,142 +510,348 @@ public class RpgWorldState extends SavedData {
 
     public void addCharacterExtra(String characterId, CharacterExtra extra) {
         characterExtras.computeIfAbsent(characterId, k -> new ArrayList<>()).add(extra);
-        setDirty();
+        if (journal != null) journal.characterExtraAdded(characterId, extra);
+        markChanged(Section.CHARACTER_EXTRAS, characterId);
     }
 
     public void removeCharacterExtrasBySource(String characterId, String source) {
         List<CharacterExtra> extras = characterExtras.get(characterId);
         if (extras != null) {
             extras.removeIf(e -> e.source().equals(source));
-            setDirty();
+            if (journal != null) journal.characterExtrasRemoved(characterId, source);
+            markChanged(Section.CHARACTER_EXTRAS, characterId);
         }
     }
 
     // Character Locations
     public String getCharacterLocation(String characterId) {
-        return characterLocations.get(characterId);
+        ensureBound();
+        return characterLocationEntry(characterId);
     }
 
     public void setCharacterLocation(String characterId, String locationId) {
-        characterLocations.put(characterId, locationId);
-        setDirty();
+        ensureBound();
+        moveCharacter(characterId, locationId);
+    }
+
+    /**
+     * Moves several characters to one location, e.g. everyone involved in a quest.
+     */
+    public void moveCharacters(Collection<String> characterIds, String locationId) {
+        ensureBound();
+        for (String characterId : characterIds) {
+            moveCharacter(characterId, locationId);
+        }
+    }
+
+    /**
+     * Applies a batch of moves, character id to location id.
+     */
+    public void setCharacterLocations(Map<String, String> moves) {
+        ensureBound();
+        moves.forEach(this::moveCharacter);
+    }
+
+    private void moveCharacter(String characterId, String locationId) {
+        putCharacterLocation(characterId, locationId);
+        if (journal != null) journal.characterLocation(characterId, locationId);
+        markChanged(Section.CHARACTER_LOCATIONS, characterId);
+    }
+
+    private void putCharacterLocation(String characterId, String locationId) {
+        int id = symbols.characters().indexOf(characterId);
+        int location = symbols.locations().indexOf(locationId);
+
+        // Drop the old reverse entry first
+        if (id >= 0 && characterLocations[id] != NO_LOCATION) {
+            charactersByLocation[characterLocations[id]].remove(id);
+        }
+        String previousExtra = extraCharacterLocations.get(characterId);
+        if (previousExtra != null) {
+            Set<String> there = extraCharactersByLocation.get(previousExtra);
+            there.remove(characterId);
+            if (there.isEmpty()) extraCharactersByLocation.remove(previousExtra);
+        }
+
+        if (id >= 0 && location >= 0) {
+            characterLocations[id] = location;
+            extraCharacterLocations.remove(characterId);
+            if (charactersByLocation[location] == null) charactersByLocation[location] = new IntLinkedOpenHashSet();
+            charactersByLocation[location].add(id);
+        } else {
+            if (id >= 0) characterLocations[id] = NO_LOCATION;
+            extraCharacterLocations.put(characterId, locationId);
+            extraCharactersByLocation.computeIfAbsent(locationId, k -> new LinkedHashSet<>()).add(characterId);
+        }
+    }
+
+    public List<String> getCharactersAtLocation(String locationId) {
+        ensureBound();
+        List<String> result = new ArrayList<>(getPopulation(locationId));
+        int location = symbols.locations().indexOf(locationId);
+        if (location >= 0 && charactersByLocation[location] != null) {
+            charactersByLocation[location].forEach((int id) -> result.add(symbols.characters().nameOf(id)));
+        }
+        result.addAll(extraCharactersByLocation.getOrDefault(locationId, Set.of()));
+        return result;
+    }
+
+    public int getPopulation(String locationId) {
+        ensureBound();
+        int location = symbols.locations().indexOf(locationId);
+        int count = location >= 0 && charactersByLocation[location] != null ? charactersByLocation[location].size() : 0;
+        Set<String> extra = extraCharactersByLocation.get(locationId);
+        return extra != null ? count + extra.size() : count;
     }
 
     public Map<String, String> getAllCharacterLocations() {
-        return Collections.unmodifiableMap(characterLocations);
+        ensureBound();
+        return collectCharacterLocations();
     }
 
-    // NBT Serialization
+    private Map<String, String> collectCharacterLocations() {
+        Map<String, String> result = new HashMap<>(extraCharacterLocations);
+        for (int i = 0; i < characterLocations.length; i++) {
+            if (characterLocations[i] != NO_LOCATION) {
+                result.put(symbols.characters().nameOf(i), symbols.locations().nameOf(characterLocations[i]));
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
 
-    public CompoundTag saveToTag(CompoundTag root) {
-        root.put("Party", party.toNbt());
+    // Snapshots
 
-        // Quest states
-        CompoundTag questTag = new CompoundTag();
-        questStates.forEach((k, v) -> questTag.putString(k, v.name()));
-        root.put("QuestStates", questTag);
+    /**
+     * The most recently published snapshot, or null before the first publish. Safe to call
+     * from any thread.
+     */
+    public WorldStateSnapshot getSnapshot() {
+        return snapshot;
+    }
 
-        // Completed branches
-        CompoundTag branchTag = new CompoundTag();
-        completedBranches.forEach(branchTag::putString);
-        root.put("CompletedBranches", branchTag);
+    /**
+     * Publishes the current state for off-thread readers. Server thread only; only the entries
+     * changed since the previous snapshot are updated, everything else is shared with it.
+     */
+    public WorldStateSnapshot publishSnapshot(long tick) {
+        WorldStateSnapshot previous = snapshot;
+        if (previous != null && !unpublished) return previous;
+
+        ensureBound();
+        WorldStateSnapshot next = buildSnapshot(previous, tick);
+        unpublishedKeys.values().forEach(Set::clear);
+        unpublished = false;
+        snapshot = next;
+        return next;
+    }
 
-        // Quest timers
-        CompoundTag timerTag = new CompoundTag();
-        activeQuestTimers.forEach(timerTag::putLong);
-        root.put("QuestTimers", timerTag);
+    // A null previous snapshot rebuilds every section. Reads the dense arrays directly, so it is
+    // also safe to call mid-rebind
+    private WorldStateSnapshot buildSnapshot(WorldStateSnapshot previous, long tick) {
+        boolean full = previous == null;
+        return new WorldStateSnapshot(
+            partyId,
+            tick,
+            journal != null ? journal.getLastSeq() : journalSeq,
+            full ? PersistentMap.copyOf(collectQuestStates()) : update(previous.questStates(), Section.QUEST_STATES, this::questStateEntry),
+            full ? build(questKeys(extraCompletedBranches), this::completedBranchEntry) : update(previous.completedBranches(), Section.COMPLETED_BRANCHES, this::completedBranchEntry),
+            full ? PersistentMap.copyOf(collectQuestTimers()) : update(previous.questTimers(), Section.QUEST_TIMERS, this::questTimerEntry),
+            full ? build(factionKeys(), this::factionStatsEntry) : update(previous.factionStats(), Section.FACTION_STATS, this::factionStatsEntry),
+            full ? build(locationKeys(), this::locationStateEntry) : update(previous.locationStates(), Section.LOCATION_STATES, this::locationStateEntry),
+            full ? PersistentMap.copyOf(collectGlobalVars()) : update(previous.globalVars(), Section.GLOBAL_VARS, this::globalVarEntry),
+            full ? build(characterExtras.keySet(), this::characterExtrasEntry) : update(previous.characterExtras(), Section.CHARACTER_EXTRAS, this::characterExtrasEntry),
+            full ? PersistentMap.copyOf(collectCharacterLocations()) : update(previous.characterLocations(), Section.CHARACTER_LOCATIONS, this::characterLocationEntry)
+        );
+    }
 
-        // Faction stats
-        CompoundTag factionTag = new CompoundTag();
-        factionStats.forEach((factionId, stats) -> {
-            CompoundTag statsTag = new CompoundTag();
-            stats.forEach(statsTag::putInt);
-            factionTag.put(factionId, statsTag);
-        });
-        root.put("FactionStats", factionTag);
+    private void markChanged(Section section, String key) {
+        unpublishedKeys.get(section).add(key);
+        unpublished = true;
+        unsaved = true;
+    }
 
-        // Location states
-        CompoundTag locTag = new CompoundTag();
-        locationStates.forEach(locTag::putString);
-        root.put("LocationStates", locTag);
+    private <V> PersistentMap<String, V> update(PersistentMap<String, V> map, Section section, Function<String, V> entry) {
+        for (String key : unpublishedKeys.get(section)) {
+            V value = entry.apply(key);
+            map = value != null ? map.with(key, value) : map.without(key);
+        }
+        return map;
+    }
 
-        // Global vars
-        CompoundTag varTag = new CompoundTag();
-        globalVars.forEach(varTag::putBoolean);
-        root.put("GlobalVars", varTag);
+    private static <V> PersistentMap<String, V> build(Collection<String> keys, Function<String, V> entry) {
+        PersistentMap<String, V> map = PersistentMap.empty();
+        for (String key : keys) {
+            V value = entry.apply(key);
+            if (value != null) map = map.with(key, value);
+        }
+        return map;
+    }
 
-        // Character extras
-        CompoundTag extrasTag = new CompoundTag();
-        characterExtras.forEach((charId, extras) -> {
-            ListTag list = new ListTag();
-            extras.forEach(e -> list.add(e.toNbt()));
-            extrasTag.put(charId, list);
-        });
-        root.put("CharacterExtras", extrasTag);
+    private Set<String> questKeys(Map<String, ?> extra) {
+        Set<String> keys = new HashSet<>(extra.keySet());
+        for (int i = 0; i < questStates.length; i++) {
+            keys.add(symbols.quests().nameOf(i));
+        }
+        return keys;
+    }
 
-        // Character locations
-        CompoundTag charLocTag = new CompoundTag();
-        characterLocations.forEach(charLocTag::putString);
-        root.put("CharacterLocations", charLocTag);
+    private Set<String> factionKeys() {
+        Set<String> keys = new HashSet<>(extraFactionStats.keySet());
+        for (int f = 0; f < factionStats.length; f++) {
+            keys.add(symbols.factions().nameOf(f));
+        }
+        return keys;
+    }
+
+    private Set<String> locationKeys() {
+        Set<String> keys = new HashSet<>(extraLocationStates.keySet());
+        for (int i = 0; i < locationStates.length; i++) {
+            keys.add(symbols.locations().nameOf(i));
+        }
+        return keys;
+    }
+
+    // Current value of a single entry, or null if it is unset
+
+    private QuestState questStateEntry(String fullId) {
+        int id = symbols.quests().indexOf(fullId);
+        if (id < 0) return extraQuestStates.get(fullId);
+        return questStates[id] == UNSET ? null : QUEST_STATES[questStates[id] - 1];
+    }
+
+    private String completedBranchEntry(String fullId) {
+        int id = symbols.quests().indexOf(fullId);
+        return id >= 0 ? completedBranches[id] : extraCompletedBranches.get(fullId);
+    }
+
+    private Long questTimerEntry(String fullId) {
+        int id = symbols.quests().indexOf(fullId);
+        if (id < 0) return extraQuestTimers.get(fullId);
+        return questTimers[id] == NO_TIMER ? null : questTimers[id];
+    }
+
+    private Map<String, Integer> factionStatsEntry(String factionId) {
+        Map<String, Integer> stats = new HashMap<>(extraFactionStats.getOrDefault(factionId, Map.of()));
+        int faction = symbols.factions().indexOf(factionId);
+        if (faction >= 0) {
+            for (int s = 0; s < factionStats[faction].length; s++) {
+                if (factionStats[faction][s] != 0) {
+                    stats.put(symbols.stats().nameOf(s), factionStats[faction][s]);
+                }
+            }
+        }
+        return stats.isEmpty() ? null : Collections.unmodifiableMap(stats);
+    }
+
+    private String locationStateEntry(String locationId) {
+        int id = symbols.locations().indexOf(locationId);
+        return id >= 0 ? locationStates[id] : extraLocationStates.get(locationId);
+    }
 
-        return root;
+    private Boolean globalVarEntry(String key) {
+        int id = symbols.globalVars().indexOf(key);
+        if (id < 0) return extraGlobalVars.get(key);
+        return globalVars[id] == UNSET ? null : globalVars[id] == VAR_TRUE;
     }
 
+    private List<CharacterExtra> characterExtrasEntry(String characterId) {
+        List<CharacterExtra> extras = characterExtras.get(characterId);
+        return extras == null || extras.isEmpty() ? null : List.copyOf(extras);
+    }
+
+    private String characterLocationEntry(String characterId) {
+        int id = symbols.characters().indexOf(characterId);
+        if (id >= 0 && characterLocations[id] != NO_LOCATION) {
+            return symbols.locations().nameOf(characterLocations[id]);
+        }
+        return extraCharacterLocations.get(characterId);
+    }
+
+    // Saving (see WorldStateWriter)
+
+    boolean isUnsaved() {
+        return unsaved;
+    }
+
+    void markUnsaved() {
+        unsaved = true;
+    }
+
+    /**
+     * Publishes a snapshot for the writer and starts a new journal segment, since everything
+     * journaled so far is covered by it. Server thread only.
+     */
+    WorldStateSnapshot captureForSave(long tick) {
+        WorldStateSnapshot captured = publishSnapshot(tick);
+        journalSeq = captured.journalSeq();
+        if (journal != null) journal.rotate();
+        unsaved = false;
+        return captured;
+    }
+
+    // Loading (string-keyed on disk so saves survive content changes)
+
     public static RpgWorldState load(CompoundTag root) {
         RpgWorldState state = new RpgWorldState();
+        state.bind(RpgDataRegistry.getInstance());
 
-        // Party
-        if (root.contains("Party")) {
-            CompoundTag partyTag = root.getCompoundOrEmpty("Party");
-            PartyData loaded = PartyData.fromNbt(partyTag);
-            state.party.setLeader(loaded.getLeader());
-            loaded.getMembers().forEach(state.party::addMember);
-        }
+        state.loadSections(root);
+        state.journalSeq = root.getLongOr("JournalSeq", 0L);
+        return state;
+    }
+
+    // Used once to copy progress out of the old single-campaign save
+    void importLegacy(CompoundTag root) {
+        ensureBound();
+        loadSections(root);
+        snapshot = null;
+        unsaved = true;
+    }
 
+    private void loadSections(CompoundTag root) {
         // Quest states
         CompoundTag questTag = root.getCompoundOrEmpty("QuestStates");
         for (String key : questTag.keySet()) {
             try {
-                state.questStates.put(key, QuestState.valueOf(questTag.getStringOr(key, "BLOCKED")));
+                putQuestState(key, QuestState.valueOf(questTag.getStringOr(key, "BLOCKED")));
             } catch (IllegalArgumentException ignored) {}
         }
 
         // Completed branches
         CompoundTag branchTag = root.getCompoundOrEmpty("CompletedBranches");
         for (String key : branchTag.keySet()) {
-            state.completedBranches.put(key, branchTag.getStringOr(key, ""));
+            putCompletedBranch(key, branchTag.getStringOr(key, ""));
         }
 
         // Quest timers
         CompoundTag timerTag = root.getCompoundOrEmpty("QuestTimers");
         for (String key : timerTag.keySet()) {
-            state.activeQuestTimers.put(key, timerTag.getLongOr(key, 0L));
+            putQuestTimer(key, timerTag.getLongOr(key, 0L));
         }
 
         // Faction stats
         CompoundTag factionTag = root.getCompoundOrEmpty("FactionStats");
         for (String factionId : factionTag.keySet()) {
             CompoundTag statsTag = factionTag.getCompoundOrEmpty(factionId);
-            Map<String, Integer> stats = new HashMap<>();
             for (String stat : statsTag.keySet()) {
-                stats.put(stat, statsTag.getIntOr(stat, 0));
+                putFactionStat(factionId, stat, statsTag.getIntOr(stat, 0));
             }
-            state.factionStats.put(factionId, stats);
         }
 
         // Location states
         CompoundTag locTag = root.getCompoundOrEmpty("LocationStates");
         for (String key : locTag.keySet()) {
-            state.locationStates.put(key, locTag.getStringOr(key, ""));
+            putLocationState(key, locTag.getStringOr(key, ""));
         }
 
         // Global vars
         CompoundTag varTag = root.getCompoundOrEmpty("GlobalVars");
         for (String key : varTag.keySet()) {
-            state.globalVars.put(key, varTag.getBooleanOr(key, false));
+            putGlobalVar(key, varTag.getBooleanOr(key, false));
         }
 
         // Character extras
+        characterExtras.clear();
         CompoundTag extrasTag = root.getCompoundOrEmpty("CharacterExtras");
         for (String charId : extrasTag.keySet()) {
             ListTag list = extrasTag.getListOrEmpty(charId);
@@ -292,15 +861,13 @@ public class RpgWorldState extends SavedData {
                     extras.add(CharacterExtra.fromNbt(ct));
                 }
             }
-            state.characterExtras.put(charId, extras);
+            characterExtras.put(charId, extras);
         }
 
         // Character locations
         CompoundTag charLocTag = root.getCompoundOrEmpty("CharacterLocations");
         for (String key : charLocTag.keySet()) {
-            state.characterLocations.put(key, charLocTag.getStringOr(key, ""));
+            putCharacterLocation(key, charLocTag.getStringOr(key, ""));
         }
-
-        return state;
     }
 }
@@ -0,0 +1,428 @@
+package ninja.trek.rpg.state;
+
+import ninja.trek.rpg.Mcrpg;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log for one party shard. Every mutation is appended as a small binary record
+ * and flushed to disk on a background thread; records queued while a flush is running are
+ * committed together by the next one. On load, records newer than the sequence number stored
+ * in the snapshot are replayed, so a crash only loses what hadn't reached the OS yet.
+ *
+ * <p>A failed flush keeps its records and retries them with the next one, in a fresh segment
+ * so a torn write can't hide them on replay, and reports the failure so the shard gets a
+ * full save.
+ *
+ * <p>Segments roll over whenever a save is captured. A closed segment is deleted once a
+ * snapshot covering its last record has been written to disk.
+ */
+public class StateJournal {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mc-rpg journal writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private static final byte QUEST_STATE = 1;
+    private static final byte COMPLETED_BRANCH = 2;
+    private static final byte QUEST_TIMER = 3;
+    private static final byte QUEST_TIMER_REMOVED = 4;
+    private static final byte FACTION_STAT = 5;
+    private static final byte GLOBAL_VAR = 6;
+    private static final byte LOCATION_STATE = 7;
+    private static final byte CHARACTER_LOCATION = 8;
+    private static final byte CHARACTER_EXTRA_ADDED = 9;
+    private static final byte CHARACTER_EXTRAS_REMOVED = 10;
+
+    private final Path directory;
+    private final Runnable onWriteFailure;
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private long lastSeq; // server thread only
+
+    // Writer thread only (open() fills closedSegments before any task is submitted)
+    private FileChannel channel;
+    private final List<byte[]> unwritten = new ArrayList<>(); // taken from pending, not yet on disk
+    private int segment;
+    private long segmentLastSeq;
+    private final TreeMap<Integer, Long> closedSegments = new TreeMap<>(); // index -> last seq
+
+    private StateJournal(Path directory, Runnable onWriteFailure) {
+        this.directory = directory;
+        this.onWriteFailure = onWriteFailure;
+    }
+
+    /**
+     * Replays any records newer than the state's snapshot, then opens a fresh segment for appends.
+     * {@code onWriteFailure} runs on the writer thread whenever a flush fails.
+     */
+    static StateJournal open(Path directory, RpgWorldState state, Runnable onWriteFailure) {
+        StateJournal journal = new StateJournal(directory, onWriteFailure);
+        long snapshotSeq = state.getJournalSeq();
+        journal.lastSeq = snapshotSeq;
+
+        int replayed = 0;
+        List<Integer> segments = listSegments(directory);
+        for (int index : segments) {
+            replayed += journal.replaySegment(segmentPath(directory, index), state, snapshotSeq);
+            journal.closedSegments.put(index, journal.lastSeq);
+        }
+        if (replayed > 0) {
+            Mcrpg.LOGGER.info("Replayed {} journaled change(s) for party {}", replayed, state.getPartyId());
+        }
+
+        journal.segment = segments.isEmpty() ? 0 : segments.getLast() + 1;
+        return journal;
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    // Records
+
+    void questState(String fullId, QuestState questState) {
+        append(QUEST_STATE, out -> {
+            out.writeUTF(fullId);
+            out.writeByte(questState.ordinal());
+        });
+    }
+
+    void completedBranch(String fullId, String branchId) {
+        append(COMPLETED_BRANCH, out -> {
+            out.writeUTF(fullId);
+            writeNullable(out, branchId);
+        });
+    }
+
+    void questTimer(String fullId, long tick) {
+        append(QUEST_TIMER, out -> {
+            out.writeUTF(fullId);
+            out.writeLong(tick);
+        });
+    }
+
+    void questTimerRemoved(String fullId) {
+        append(QUEST_TIMER_REMOVED, out -> out.writeUTF(fullId));
+    }
+
+    void factionStat(String factionId, String stat, int value) {
+        append(FACTION_STAT, out -> {
+            out.writeUTF(factionId);
+            out.writeUTF(stat);
+            out.writeInt(value);
+        });
+    }
+
+    void globalVar(String key, boolean value) {
+        append(GLOBAL_VAR, out -> {
+            out.writeUTF(key);
+            out.writeBoolean(value);
+        });
+    }
+
+    void locationState(String locationId, String locationState) {
+        append(LOCATION_STATE, out -> {
+            out.writeUTF(locationId);
+            writeNullable(out, locationState);
+        });
+    }
+
+    void characterLocation(String characterId, String locationId) {
+        append(CHARACTER_LOCATION, out -> {
+            out.writeUTF(characterId);
+            writeNullable(out, locationId);
+        });
+    }
+
+    void characterExtraAdded(String characterId, CharacterExtra extra) {
+        append(CHARACTER_EXTRA_ADDED, out -> {
+            out.writeUTF(characterId);
+            writeNullable(out, extra.text());
+            writeNullable(out, extra.source());
+        });
+    }
+
+    void characterExtrasRemoved(String characterId, String source) {
+        append(CHARACTER_EXTRAS_REMOVED, out -> {
+            out.writeUTF(characterId);
+            writeNullable(out, source);
+        });
+    }
+
+    // Values may be null (e.g. a character moved nowhere); keys never are
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // Frame: int length | body (long seq, byte type, fields) | int crc32(body)
+    private void append(byte type, RecordWriter writer) {
+        long seq = ++lastSeq;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            out.writeLong(seq);
+            out.writeByte(type);
+            writer.write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+
+        byte[] frame = new byte[bytes.size() + 4];
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        buffer.put(bytes.toByteArray());
+        int bodyLength = frame.length - 8;
+        buffer.putInt(0, bodyLength);
+        CRC32 crc = new CRC32();
+        crc.update(frame, 4, bodyLength);
+        buffer.putInt(frame.length - 4, (int) crc.getValue());
+
+        pending.add(frame);
+        if (flushScheduled.compareAndSet(false, true)) {
+            WRITER.execute(this::flush);
+        }
+    }
+
+    // Writer thread
+
+    private void flush() {
+        flushScheduled.set(false);
+        byte[] frame;
+        while ((frame = pending.poll()) != null) {
+            unwritten.add(frame);
+        }
+        if (unwritten.isEmpty()) return;
+
+        int size = 0;
+        for (byte[] f : unwritten) {
+            size += f.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        unwritten.forEach(buffer::put);
+        buffer.flip();
+
+        try {
+            if (channel == null) {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(segmentPath(directory, segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Mcrpg.LOGGER.error("Failed to write RPG state journal {}, keeping {} record(s) for the next attempt: {}",
+                directory, unwritten.size(), e.getMessage());
+            // Part of the batch may have landed; replay stops at a torn record, so retry in a new segment
+            if (channel != null) {
+                closeSegment();
+            }
+            onWriteFailure.run();
+            return;
+        }
+
+        for (byte[] written : unwritten) {
+            segmentLastSeq = Math.max(segmentLastSeq, seqOf(written));
+        }
+        unwritten.clear();
+    }
+
+    private static long seqOf(byte[] frame) {
+        return ByteBuffer.wrap(frame).getLong(4);
+    }
+
+    // Frames of a failed batch may be in the closed segment, so it is covered up to the highest
+    // of them; replay skips the copies that are written again
+    private void closeSegment() {
+        closeChannel();
+        long lastSeq = segmentLastSeq;
+        for (byte[] frame : unwritten) {
+            lastSeq = Math.max(lastSeq, seqOf(frame));
+        }
+        if (lastSeq > 0) {
+            closedSegments.put(segment, lastSeq);
+        }
+        segment++;
+        segmentLastSeq = 0;
+    }
+
+    /**
+     * Starts a new segment. Called when a save is captured, so that older segments can be
+     * dropped once that save is on disk.
+     */
+    void rotate() {
+        WRITER.execute(() -> {
+            flush();
+            if (channel != null) {
+                closeSegment();
+            }
+        });
+    }
+
+    /**
+     * Deletes closed segments whose records are all covered by a snapshot that is now on disk.
+     * Safe to call from any thread.
+     */
+    void discardThrough(long durableSeq) {
+        WRITER.execute(() -> {
+            // Records the snapshot covers no longer need to reach the journal
+            unwritten.removeIf(frame -> seqOf(frame) <= durableSeq);
+
+            Iterator<Map.Entry<Integer, Long>> it = closedSegments.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, Long> entry = it.next();
+                if (entry.getValue() > durableSeq) continue;
+                try {
+                    Files.deleteIfExists(segmentPath(directory, entry.getKey()));
+                    it.remove();
+                } catch (IOException e) {
+                    Mcrpg.LOGGER.warn("Failed to delete journal segment {}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    void close() {
+        try {
+            WRITER.submit(() -> {
+                flush();
+                closeChannel();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Mcrpg.LOGGER.error("Failed to close RPG state journal {}", directory, e.getCause());
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Mcrpg.LOGGER.warn("Failed to close journal segment: {}", e.getMessage());
+        }
+        channel = null;
+    }
+
+    // Replay
+
+    private int replaySegment(Path path, RpgWorldState state, long snapshotSeq) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        } catch (IOException e) {
+            Mcrpg.LOGGER.error("Failed to read journal segment {}: {}", path, e.getMessage());
+            return 0;
+        }
+
+        int replayed = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int bodyLength = buffer.getInt();
+            if (bodyLength < 9 || buffer.remaining() < bodyLength + 4) break; // torn tail
+
+            crc.reset();
+            crc.update(buffer.array(), start + 4, bodyLength);
+            if (buffer.getInt(start + 4 + bodyLength) != (int) crc.getValue()) {
+                Mcrpg.LOGGER.warn("Journal segment {} has a corrupt record; ignoring the rest", path.getFileName());
+                break;
+            }
+            buffer.position(start + 8 + bodyLength);
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array(), start + 4, bodyLength))) {
+                // lastSeq starts at the snapshot's; this also skips copies of records retried
+                // in a later segment after a failed flush
+                long seq = in.readLong();
+                if (seq <= lastSeq) continue;
+                lastSeq = seq;
+                apply(in.readByte(), in, state);
+                replayed++;
+            } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+                Mcrpg.LOGGER.warn("Skipping malformed journal record in {}", path.getFileName());
+            }
+        }
+        return replayed;
+    }
+
+    private static void apply(byte type, DataInputStream in, RpgWorldState state) throws IOException {
+        switch (type) {
+            case QUEST_STATE -> state.setQuestState(in.readUTF(), QuestState.values()[in.readByte()]);
+            case COMPLETED_BRANCH -> state.setCompletedBranch(in.readUTF(), readNullable(in));
+            case QUEST_TIMER -> state.setQuestTimer(in.readUTF(), in.readLong());
+            case QUEST_TIMER_REMOVED -> state.removeQuestTimer(in.readUTF());
+            case FACTION_STAT -> state.setFactionStat(in.readUTF(), in.readUTF(), in.readInt());
+            case GLOBAL_VAR -> state.setGlobalVar(in.readUTF(), in.readBoolean());
+            case LOCATION_STATE -> state.setLocationState(in.readUTF(), readNullable(in));
+            case CHARACTER_LOCATION -> state.setCharacterLocation(in.readUTF(), readNullable(in));
+            case CHARACTER_EXTRA_ADDED -> state.addCharacterExtra(in.readUTF(), new CharacterExtra(readNullable(in), readNullable(in)));
+            case CHARACTER_EXTRAS_REMOVED -> state.removeCharacterExtrasBySource(in.readUTF(), readNullable(in));
+            default -> throw new IllegalArgumentException("Unknown journal record type " + type);
+        }
+    }
+
+    // Segments
+
+    private static Path segmentPath(Path directory, int index) {
+        return directory.resolve(String.format("%08d", index) + SEGMENT_SUFFIX);
+    }
+
+    private static List<Integer> listSegments(Path directory) {
+        if (!Files.isDirectory(directory)) return List.of();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                .map(name -> {
+                    try {
+                        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    } catch (NumberFormatException e) {
+                        return -1;
+                    }
+                })
+                .filter(index -> index >= 0)
+                .sorted()
+                .toList();
+        } catch (IOException e) {
+            Mcrpg.LOGGER.error("Failed to list journal segments in {}: {}", directory, e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ninja.trek.rpg.state;
+
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns snapshots into the on-disk NBT form. Keeps the tag built for each section and, on
+ * the next save, diffs the new snapshot's section against the one it was built from and
+ * re-encodes only the entries that changed: one quest, one faction's stats, one character's
+ * extras. Not thread-safe; one instance per party.
+ */
+class WorldStateEncoder {
+
+    private final Map<String, CachedSection> sections = new HashMap<>();
+
+    static CompoundTag encodeFresh(WorldStateSnapshot snapshot) {
+        return new WorldStateEncoder().encode(snapshot);
+    }
+
+    CompoundTag encode(WorldStateSnapshot snapshot) {
+        CompoundTag root = new CompoundTag();
+        root.put("QuestStates", section("QuestStates", snapshot.questStates(),
+            (tag, key, state) -> tag.putString(key, state.name())));
+        root.put("CompletedBranches", section("CompletedBranches", snapshot.completedBranches(), CompoundTag::putString));
+        root.put("QuestTimers", section("QuestTimers", snapshot.questTimers(), CompoundTag::putLong));
+        root.put("FactionStats", section("FactionStats", snapshot.factionStats(), (tag, factionId, stats) -> {
+            CompoundTag statsTag = new CompoundTag();
+            stats.forEach(statsTag::putInt);
+            tag.put(factionId, statsTag);
+        }));
+        root.put("LocationStates", section("LocationStates", snapshot.locationStates(), CompoundTag::putString));
+        root.put("GlobalVars", section("GlobalVars", snapshot.globalVars(), CompoundTag::putBoolean));
+        root.put("CharacterExtras", section("CharacterExtras", snapshot.characterExtras(), (tag, charId, extras) -> {
+            ListTag list = new ListTag();
+            extras.forEach(e -> list.add(e.toNbt()));
+            tag.put(charId, list);
+        }));
+        root.put("CharacterLocations", section("CharacterLocations", snapshot.characterLocations(), CompoundTag::putString));
+        root.putLong("JournalSeq", snapshot.journalSeq());
+        return root;
+    }
+
+    // Cached tags are updated in place. That is safe because encoding and writing a save both
+    // happen on the writer thread, so a tag is never written while the next save changes it
+    @SuppressWarnings("unchecked")
+    private <V> CompoundTag section(String name, PersistentMap<String, V> source, EntryEncoder<V> encoder) {
+        CachedSection cached = sections.get(name);
+        if (cached == null) {
+            CompoundTag tag = new CompoundTag();
+            source.forEach((key, value) -> encoder.put(tag, key, value));
+            sections.put(name, new CachedSection(source, tag));
+            return tag;
+        }
+
+        if (cached.source != source) {
+            CompoundTag tag = cached.tag;
+            source.diff((PersistentMap<String, V>) cached.source, (key, value) -> {
+                if (value == null) {
+                    tag.remove(key);
+                } else {
+                    encoder.put(tag, key, value);
+                }
+            });
+            cached.source = source;
+        }
+        return cached.tag;
+    }
+
+    @FunctionalInterface
+    private interface EntryEncoder<V> {
+        void put(CompoundTag tag, String key, V value);
+    }
+
+    private static class CachedSection {
+        PersistentMap<String, ?> source;
+        final CompoundTag tag;
+
+        CachedSection(PersistentMap<String, ?> source, CompoundTag tag) {
+            this.source = source;
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package ninja.trek.rpg.state;
+
+import com.mojang.serialization.Codec;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.minecraft.world.level.saveddata.SavedDataType;
+import net.minecraft.world.level.storage.DimensionDataStorage;
+import net.minecraft.world.level.storage.LevelResource;
+import ninja.trek.rpg.Mcrpg;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Tracks which party shards are loaded. Each shard is its own SavedData file with its own
+ * dirty flag, so a save only rewrites the parties that actually changed.
+ */
+public class WorldStateShards {
+
+    private static final Map<UUID, RpgWorldState> loaded = new HashMap<>();
+    private static final List<BiConsumer<MinecraftServer, RpgWorldState>> loadListeners = new ArrayList<>();
+
+    /**
+     * Runs for every shard right after it is first loaded (or created) this session.
+     */
+    public static void onLoad(BiConsumer<MinecraftServer, RpgWorldState> listener) {
+        loadListeners.add(listener);
+    }
+
+    static RpgWorldState get(MinecraftServer server, UUID partyId) {
+        return get(server, partyId, null);
+    }
+
+    private static RpgWorldState get(MinecraftServer server, UUID partyId, CompoundTag legacy) {
+        RpgWorldState state = loaded.get(partyId);
+        if (state != null) return state;
+
+        state = storage(server).computeIfAbsent(RpgWorldState.typeFor(partyId));
+        state.setPartyId(partyId);
+        if (legacy != null) {
+            state.importLegacy(legacy);
+        }
+        // Replay before attaching so replayed changes aren't journaled again. If the journal
+        // can't be written, fall back to a full save of the shard
+        RpgWorldState shard = state;
+        state.attachJournal(StateJournal.open(journalDirectory(server, partyId), state,
+            () -> server.execute(shard::markUnsaved)));
+        loaded.put(partyId, state);
+        for (BiConsumer<MinecraftServer, RpgWorldState> listener : loadListeners) {
+            listener.accept(server, state);
+        }
+        return state;
+    }
+
+    /**
+     * The loaded shard for a party, or null if it hasn't been needed yet this session.
+     */
+    public static RpgWorldState getLoaded(UUID partyId) {
+        return loaded.get(partyId);
+    }
+
+    public static Collection<RpgWorldState> getAllLoaded() {
+        return Collections.unmodifiableCollection(loaded.values());
+    }
+
+    /**
+     * Publishes a fresh snapshot of every loaded shard that changed. Runs at the end of each tick.
+     */
+    public static void publishSnapshots(long tick) {
+        for (RpgWorldState state : loaded.values()) {
+            state.publishSnapshot(tick);
+        }
+    }
+
+    public static void clear() {
+        loaded.values().forEach(RpgWorldState::closeJournal);
+        loaded.clear();
+    }
+
+    private static DimensionDataStorage storage(MinecraftServer server) {
+        return server.getLevel(Level.OVERWORLD).getDataStorage();
+    }
+
+    private static Path journalDirectory(MinecraftServer server, UUID partyId) {
+        return server.getWorldPath(LevelResource.ROOT).resolve("data").resolve("mc_rpg_journal").resolve(partyId.toString());
+    }
+
+    // Legacy single-campaign save
+
+    private static final UUID LEGACY_PARTY_ID = UUID.nameUUIDFromBytes("mc_rpg_world_state".getBytes(StandardCharsets.UTF_8));
+
+    private static final SavedDataType<LegacyWorldState> LEGACY_TYPE = new SavedDataType<>(
+        "mc_rpg_world_state", LegacyWorldState::new, LegacyWorldState.CODEC, null
+    );
+
+    /**
+     * Moves the pre-sharding world state into a party shard. Runs once per world.
+     */
+    public static void migrateLegacy(MinecraftServer server) {
+        PartyIndex index = PartyIndex.get(server);
+        if (index.isLegacyMigrated()) return;
+
+        LegacyWorldState legacy = storage(server).get(LEGACY_TYPE);
+        if (legacy == null || legacy.tag.getBooleanOr("Migrated", false)) {
+            index.markLegacyMigrated();
+            return;
+        }
+
+        // The pre-sharding save has no party id. A fixed one lets a retry after a crash find the
+        // party and shard an earlier attempt created instead of importing into a second party
+        CompoundTag partyTag = legacy.tag.getCompoundOrEmpty("Party").copy();
+        if (partyTag.getStringOr("Id", "").isEmpty()) {
+            partyTag.putString("Id", LEGACY_PARTY_ID.toString());
+        }
+        PartyData party = PartyData.fromNbt(partyTag);
+        index.adoptLegacyParty(party);
+
+        // A shard file means an earlier run already imported this and may have saved newer
+        // progress since; importing again would roll that back
+        if (!Files.exists(WorldStateWriter.pathFor(server, party.getId()))) {
+            RpgWorldState state = get(server, party.getId(), legacy.tag);
+            // The import isn't journaled, so the old data stays until the shard is on disk
+            if (!WorldStateWriter.saveNow(server, state)) {
+                Mcrpg.LOGGER.error("Keeping legacy RPG world state until party {} can be saved", party.getId());
+                return;
+            }
+        }
+
+        // Leave a marker rather than the old data so it is never imported twice
+        legacy.tag = new CompoundTag();
+        legacy.tag.putBoolean("Migrated", true);
+        legacy.tag.putString("MigratedTo", party.getId().toString());
+        legacy.setDirty();
+        index.markLegacyMigrated();
+
+        Mcrpg.LOGGER.info("Migrated legacy RPG world state into party {}", party.getId());
+    }
+
+    private static class LegacyWorldState extends SavedData {
+        static final Codec<LegacyWorldState> CODEC = CompoundTag.CODEC.xmap(
+            LegacyWorldState::new,
+            legacy -> legacy.tag
+        );
+
+        CompoundTag tag;
+
+        LegacyWorldState() {
+            this(new CompoundTag());
+        }
+
+        LegacyWorldState(CompoundTag tag) {
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ninja.trek.rpg.state;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable view of one party shard as of the end of a server tick. Safe to read from any
+ * thread. Sections are {@link PersistentMap}s, so consecutive snapshots share every entry
+ * that didn't change in between.
+ */
+public record WorldStateSnapshot(
+    UUID partyId,
+    long tick,
+    long journalSeq,
+    PersistentMap<String, QuestState> questStates,
+    PersistentMap<String, String> completedBranches,
+    PersistentMap<String, Long> questTimers,
+    PersistentMap<String, Map<String, Integer>> factionStats,
+    PersistentMap<String, String> locationStates,
+    PersistentMap<String, Boolean> globalVars,
+    PersistentMap<String, List<CharacterExtra>> characterExtras,
+    PersistentMap<String, String> characterLocations
+) {
+
+    public QuestState getQuestState(String fullId) {
+        return questStates.getOrDefault(fullId, QuestState.BLOCKED);
+    }
+
+    public int getFactionStat(String factionId, String stat) {
+        return factionStats.getOrDefault(factionId, Map.of()).getOrDefault(stat, 0);
+    }
+
+    public boolean getGlobalVar(String key) {
+        return globalVars.getOrDefault(key, false);
+    }
+
+    public List<CharacterExtra> getCharacterExtras(String characterId) {
+        return characterExtras.getOrDefault(characterId, List.of());
+    }
+}
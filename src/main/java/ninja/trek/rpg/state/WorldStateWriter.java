@@ -0,0 +1,149 @@
+package ninja.trek.rpg.state;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtUtils;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.storage.LevelResource;
+import ninja.trek.rpg.Mcrpg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Saves party shards off the server thread. On each world save the server thread only
+ * captures a snapshot; NBT encoding, compression and the file write happen on a background
+ * thread. A shard whose previous save is still being written is skipped until the next
+ * autosave, unless the save has to flush (shutdown, /save-all flush).
+ *
+ * <p>Files use the same layout as vanilla saved data, so shards still load through
+ * {@link net.minecraft.world.level.storage.DimensionDataStorage}.
+ */
+public class WorldStateWriter {
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "mc-rpg state writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<UUID, Future<?>> inFlight = new HashMap<>(); // server thread only
+    private static final Map<UUID, WorldStateEncoder> encoders = new HashMap<>(); // writer thread only
+
+    public static void register() {
+        ServerLifecycleEvents.BEFORE_SAVE.register((server, flush, force) -> saveAll(server, flush));
+    }
+
+    public static void saveAll(MinecraftServer server, boolean flush) {
+        for (RpgWorldState state : WorldStateShards.getAllLoaded()) {
+            save(server, state, flush);
+        }
+        if (flush) {
+            awaitAll();
+        }
+    }
+
+    /**
+     * Writes a shard on the calling thread and returns whether it reached the disk. For saves
+     * that must be durable before anything else happens, like the legacy migration.
+     */
+    static boolean saveNow(MinecraftServer server, RpgWorldState state) {
+        Future<?> previous = inFlight.remove(state.getPartyId());
+        if (previous != null) await(previous);
+
+        StateJournal journal = state.getJournal();
+        WorldStateSnapshot snapshot = state.captureForSave(server.getTickCount());
+        try {
+            writeFile(WorldStateEncoder.encodeFresh(snapshot), pathFor(server, snapshot.partyId()));
+        } catch (IOException | RuntimeException e) {
+            Mcrpg.LOGGER.error("Failed to save RPG state for party {}", snapshot.partyId(), e);
+            state.markUnsaved();
+            return false;
+        }
+
+        if (journal != null) {
+            journal.discardThrough(snapshot.journalSeq());
+        }
+        return true;
+    }
+
+    static Path pathFor(MinecraftServer server, UUID partyId) {
+        return server.getWorldPath(LevelResource.ROOT).resolve("data").resolve(RpgWorldState.dataNameFor(partyId) + ".dat");
+    }
+
+    private static void save(MinecraftServer server, RpgWorldState state, boolean flush) {
+        if (!state.isUnsaved()) return;
+
+        UUID partyId = state.getPartyId();
+        Future<?> previous = inFlight.get(partyId);
+        if (previous != null && !previous.isDone()) {
+            // Backpressure: the shard stays unsaved and goes out with a later save
+            if (!flush) return;
+            await(previous);
+        }
+
+        StateJournal journal = state.getJournal();
+        WorldStateSnapshot snapshot = state.captureForSave(server.getTickCount());
+        Path path = pathFor(server, partyId);
+        inFlight.put(partyId, WRITER.submit(() -> write(server, state, journal, snapshot, path)));
+    }
+
+    private static void write(MinecraftServer server, RpgWorldState state, StateJournal journal,
+                              WorldStateSnapshot snapshot, Path path) {
+        try {
+            writeFile(encoders.computeIfAbsent(snapshot.partyId(), id -> new WorldStateEncoder()).encode(snapshot), path);
+        } catch (IOException | RuntimeException e) {
+            Mcrpg.LOGGER.error("Failed to save RPG state for party {}", snapshot.partyId(), e);
+            server.execute(state::markUnsaved);
+            return;
+        }
+
+        if (journal != null) {
+            journal.discardThrough(snapshot.journalSeq());
+        }
+    }
+
+    private static void writeFile(CompoundTag data, Path path) throws IOException {
+        CompoundTag root = new CompoundTag();
+        root.put("data", data);
+        NbtUtils.addCurrentDataVersion(root);
+
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        NbtIo.writeCompressed(root, temp);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Blocks until every queued save has been written.
+     */
+    public static void awaitAll() {
+        inFlight.values().forEach(WorldStateWriter::await);
+        inFlight.clear();
+    }
+
+    public static void clear() {
+        awaitAll();
+        WRITER.execute(encoders::clear);
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Mcrpg.LOGGER.error("RPG state save failed", e.getCause());
+        }
+    }
+}
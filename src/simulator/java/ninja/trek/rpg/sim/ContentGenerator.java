@@ -0,0 +1,334 @@
+package ninja.trek.rpg.sim;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import ninja.trek.rpg.data.*;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Generates quest packs for scale testing. The same config always produces the same pack.
+ *
+ * <p>Each faction gets two locations, a few characters and a chain of quests. Later quests
+ * need earlier ones completed and sometimes a reputation or a var set by an earlier branch.
+ * Branches can trigger quests further down the chain, block the next one, burn a location
+ * or move a character. Locked factions open once a quest of the previous faction is done.
+ * Every quest has a dialog tree whose end nodes select its branches. Everything the pack
+ * references exists, so it loads and validates without warnings.
+ *
+ * <pre>./gradlew generateContent --args="--out build/pack --factions 20 --quests-per-faction 50"</pre>
+ */
+public class ContentGenerator {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    public record Config(long seed, int factions, int questsPerFaction, int charactersPerFaction,
+                         int dialogDepth, int dialogWidth) {
+
+        public static final Config DEFAULT = new Config(42, 8, 25, 3, 4, 3);
+
+        public Config {
+            if (factions < 1 || questsPerFaction < 1 || charactersPerFaction < 1 || dialogDepth < 1 || dialogWidth < 1) {
+                throw new IllegalArgumentException("Generator counts must be at least 1");
+            }
+        }
+
+        public Config withSize(int factions, int questsPerFaction) {
+            return new Config(seed, factions, questsPerFaction, charactersPerFaction, dialogDepth, dialogWidth);
+        }
+    }
+
+    public record Pack(List<CharacterData> characters, List<LocationData> locations, List<FactionData> factions,
+                       List<QuestData> quests, List<DialogTreeData> dialogs) {
+
+        public RpgDataRegistry.Builder toBuilder() {
+            RpgDataRegistry.Builder builder = RpgDataRegistry.builder();
+            characters.forEach(builder::character);
+            locations.forEach(builder::location);
+            factions.forEach(builder::faction);
+            quests.forEach(builder::quest);
+            dialogs.forEach(builder::dialog);
+            return builder;
+        }
+
+        /**
+         * Writes the pack as JSON in the layout of {@code data/mc-rpg/rpg/}, one file per entry.
+         */
+        public void write(Path root) throws IOException {
+            writeAll(root.resolve("characters"), characters, CharacterData.CODEC, CharacterData::id);
+            writeAll(root.resolve("locations"), locations, LocationData.CODEC, LocationData::id);
+            writeAll(root.resolve("factions"), factions, FactionData.CODEC, FactionData::id);
+            writeAll(root.resolve("quests"), quests, QuestData.CODEC, quest -> quest.fullId().replace('.', '_'));
+            writeAll(root.resolve("dialogs"), dialogs, DialogTreeData.CODEC, DialogTreeData::id);
+        }
+
+        private static <T> void writeAll(Path directory, List<T> values, Codec<T> codec,
+                                         Function<T, String> name) throws IOException {
+            Files.createDirectories(directory);
+            for (T value : values) {
+                String json = GSON.toJson(codec.encodeStart(JsonOps.INSTANCE, value).getOrThrow());
+                Files.writeString(directory.resolve(name.apply(value) + ".json"), json);
+            }
+        }
+    }
+
+    private final Config config;
+    private final Random random;
+
+    private ContentGenerator(Config config) {
+        this.config = config;
+        this.random = new Random(config.seed());
+    }
+
+    public static Pack generate(Config config) {
+        return new ContentGenerator(config).generate();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path out = Path.of("build/generated-pack");
+        Config config = Config.DEFAULT;
+        long seed = config.seed();
+        int factions = config.factions();
+        int quests = config.questsPerFaction();
+        int characters = config.charactersPerFaction();
+        int depth = config.dialogDepth();
+        int width = config.dialogWidth();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--factions" -> factions = Integer.parseInt(args[++i]);
+                case "--quests-per-faction" -> quests = Integer.parseInt(args[++i]);
+                case "--characters-per-faction" -> characters = Integer.parseInt(args[++i]);
+                case "--dialog-depth" -> depth = Integer.parseInt(args[++i]);
+                case "--dialog-width" -> width = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --out <dir> --seed <n> --factions <n> --quests-per-faction <n> "
+                        + "--characters-per-faction <n> --dialog-depth <n> --dialog-width <n>");
+                    System.exit(2);
+                }
+            }
+        }
+
+        Pack pack = generate(new Config(seed, factions, quests, characters, depth, width));
+        pack.write(out);
+        System.out.printf("Wrote %d factions, %d quests, %d characters, %d locations and %d dialogs to %s%n",
+            pack.factions().size(), pack.quests().size(), pack.characters().size(), pack.locations().size(),
+            pack.dialogs().size(), out.toAbsolutePath());
+    }
+
+    private Pack generate() {
+        List<CharacterData> characters = new ArrayList<>();
+        List<LocationData> locations = new ArrayList<>();
+        List<FactionData> factions = new ArrayList<>();
+        List<QuestData> quests = new ArrayList<>();
+        List<DialogTreeData> dialogs = new ArrayList<>();
+
+        int unlocked = Math.max(1, config.factions() / 2);
+        for (int f = 0; f < config.factions(); f++) {
+            String faction = factionId(f);
+            String hall = faction + "_hall";
+            String outskirts = faction + "_outskirts";
+            String nextHall = factionId((f + 1) % config.factions()) + "_hall";
+
+            locations.add(location(hall, List.of(outskirts, nextHall), List.of(outskirts)));
+            locations.add(location(outskirts, List.of(hall), List.of()));
+
+            List<String> members = new ArrayList<>();
+            for (int c = 0; c < config.charactersPerFaction(); c++) {
+                String id = faction + "_npc_" + c;
+                members.add(id);
+                characters.add(character(id, c % 2 == 0 ? hall : outskirts));
+            }
+
+            factions.add(new FactionData(faction, "Faction " + f, f < unlocked,
+                ordered("reputation", 0, "influence", 0), members));
+
+            for (int q = 0; q < config.questsPerFaction(); q++) {
+                QuestData quest = quest(f, q, f >= unlocked, hall, outskirts, members);
+                quests.add(quest);
+                dialogs.add(dialog(quest, members.get(q % members.size()), q));
+            }
+        }
+
+        return new Pack(characters, locations, factions, quests, dialogs);
+    }
+
+    private QuestData quest(int f, int q, boolean locked, String hall, String outskirts, List<String> members) {
+        String faction = factionId(f);
+        int count = config.questsPerFaction();
+        String npc = members.get(q % members.size());
+
+        // Requirement graph: a chain with occasional jumps back, gated by reputation and vars
+        List<String> completed = new ArrayList<>();
+        if (q > 0) {
+            completed.add(questFullId(f, random.nextInt(10) < 7 ? q - 1 : random.nextInt(q)));
+        } else if (locked) {
+            completed.add(questFullId(f - 1, Math.min(count - 1, 2)));
+        }
+        Map<String, String> stats = new LinkedHashMap<>();
+        if (q >= 4 && random.nextInt(10) < 3) {
+            stats.put(faction + ".reputation", ">= " + (1 + random.nextInt(q / 4)));
+        }
+        Map<String, Boolean> vars = new LinkedHashMap<>();
+        if (q >= 2 && random.nextInt(10) < 2) {
+            vars.put(helpedVar(f, random.nextInt(q - 1)), true);
+        }
+
+        List<QuestBranch> branches = new ArrayList<>();
+        List<String> triggers = q + 2 < count && random.nextInt(10) == 0 ? List.of(questFullId(f, q + 2)) : List.of();
+        branches.add(branch("help", BranchRequirements.EMPTY, new QuestOutcomes(
+            Map.of(faction + ".reputation", 1), Map.of(helpedVar(f, q), true), Map.of(),
+            List.of(new CharacterExtraEntry(npc, "Remembers the party's help with quest " + q)), Map.of(),
+            List.of(), triggers, List.of(), List.of())));
+        branches.add(branch("refuse", BranchRequirements.EMPTY, new QuestOutcomes(
+            ordered(faction + ".influence", 1, faction + ".reputation", -1), Map.of(), Map.of(),
+            List.of(), Map.of(), List.of(), List.of(), List.of(), List.of())));
+        if (random.nextInt(4) == 0) {
+            BranchRequirements requirements = random.nextBoolean()
+                ? new BranchRequirements(Map.of("minecraft:iron_sword", 1))
+                : BranchRequirements.EMPTY;
+            List<String> blocks = q + 1 < count ? List.of(questFullId(f, q + 1)) : List.of();
+            branches.add(branch("betray", requirements, new QuestOutcomes(
+                Map.of(faction + ".reputation", -2), Map.of(), Map.of(hall, "burned"),
+                List.of(), Map.of(npc, outskirts), List.of(), List.of(), blocks, List.of())));
+        }
+
+        return new QuestData("q" + q, faction, 1 + q * 5 / count, random.nextInt(5) == 0,
+            "Generated quest " + q + " for faction " + f, dialogId(f, q), q % 3 == 0 ? outskirts : hall,
+            List.of(npc), new QuestRequirements(completed, stats, vars), branches, autoResolve(branches));
+    }
+
+    private Optional<AutoResolveConfig> autoResolve(List<QuestBranch> branches) {
+        return switch (random.nextInt(5)) {
+            case 1 -> Optional.of(new AutoResolveConfig(AutoResolveConfig.AutoResolveType.FAIL, Map.of(), Optional.empty()));
+            case 2 -> Optional.of(new AutoResolveConfig(AutoResolveConfig.AutoResolveType.PREDETERMINED, Map.of(), Optional.of("help")));
+            case 3 -> Optional.of(new AutoResolveConfig(AutoResolveConfig.AutoResolveType.RANDOM, Map.of(), Optional.empty()));
+            case 4 -> {
+                Map<String, Integer> weights = new LinkedHashMap<>();
+                for (QuestBranch branch : branches) {
+                    weights.put(branch.id(), branch.id().equals("help") ? 3 : 1);
+                }
+                yield Optional.of(new AutoResolveConfig(AutoResolveConfig.AutoResolveType.WEIGHTED_RANDOM, weights, Optional.of("refuse")));
+            }
+            default -> Optional.empty();
+        };
+    }
+
+    private DialogTreeData dialog(QuestData quest, String speaker, int q) {
+        int depth = config.dialogDepth();
+        int width = config.dialogWidth();
+        Map<String, DialogNode> nodes = new LinkedHashMap<>();
+
+        // A lattice: every node of one level leads to the nodes of the next, the last level to the branch ends
+        for (int d = 0; d < depth; d++) {
+            int nodesAtLevel = d == 0 ? 1 : width;
+            for (int n = 0; n < nodesAtLevel; n++) {
+                List<DialogResponse> responses = new ArrayList<>();
+                if (d < depth - 1) {
+                    for (int w = 0; w < width; w++) {
+                        responses.add(response("Option " + w, nodeId(d + 1, w), w, quest, q));
+                    }
+                } else {
+                    List<QuestBranch> branches = quest.branches();
+                    for (int w = 0; w < Math.max(width, branches.size()); w++) {
+                        String branch = branches.get(w % branches.size()).id();
+                        responses.add(response("Choose " + branch, "end_" + branch, w, quest, q));
+                    }
+                }
+                nodes.put(nodeId(d, n), new DialogNode(nodeId(d, n), speaker, "Line " + d + "." + n + " of quest " + q,
+                    responses, Optional.empty()));
+            }
+        }
+
+        for (QuestBranch branch : quest.branches()) {
+            Map<String, Integer> give = branch.id().equals("help") ? Map.of("minecraft:emerald", 1 + random.nextInt(3)) : Map.of();
+            DialogOutcome outcome = new DialogOutcome(Optional.of(branch.id()), Map.of(), Map.of(), give, Map.of());
+            nodes.put("end_" + branch.id(), new DialogNode("end_" + branch.id(), speaker, branch.summary(), List.of(), Optional.of(outcome)));
+        }
+
+        return new DialogTreeData(quest.dialogId(), nodeId(0, 0), nodes);
+    }
+
+    private DialogResponse response(String text, String next, int index, QuestData quest, int q) {
+        // The first response is never gated, so every node has a way forward
+        if (index == 0 || random.nextInt(10) >= 3) {
+            return new DialogResponse(text, next, Optional.empty());
+        }
+
+        Optional<String> none = Optional.empty();
+        DialogCondition condition = switch (random.nextInt(4)) {
+            case 0 -> new DialogCondition(none, Optional.of(quest.factionId() + ".reputation >= 1"), none, Optional.empty(), none);
+            case 1 -> new DialogCondition(none, none, Optional.of("minecraft:emerald"), Optional.of(1), none);
+            case 2 -> q > 0
+                ? new DialogCondition(none, none, none, Optional.empty(), Optional.of(helpedVar(factionIndex(quest), random.nextInt(q))))
+                : new DialogCondition(none, Optional.of(quest.factionId() + ".influence >= 0"), none, Optional.empty(), none);
+            default -> quest.requirements().questsCompleted().isEmpty()
+                ? new DialogCondition(none, Optional.of(quest.factionId() + ".reputation >= 0"), none, Optional.empty(), none)
+                : new DialogCondition(Optional.of(quest.requirements().questsCompleted().getFirst()), none, none, Optional.empty(), none);
+        };
+        return new DialogResponse(text, next, Optional.of(condition));
+    }
+
+    private static QuestBranch branch(String id, BranchRequirements requirements, QuestOutcomes outcomes) {
+        return new QuestBranch(id, "The party chose to " + id, requirements, outcomes);
+    }
+
+    private LocationData location(String id, List<String> connections, List<String> burnedConnections) {
+        AtmosphereData calm = new AtmosphereData("Daylight", "Quiet chatter", "Woodsmoke", "Calm");
+        AtmosphereData ruined = new AtmosphereData("Grey light through ash", "Wind", "Ash", "Somber");
+        Map<String, LocationStateData> states = new LinkedHashMap<>();
+        states.put("normal", new LocationStateData("The " + id.replace('_', ' ') + ", as usual.", calm, Optional.empty()));
+        states.put("burned", new LocationStateData("What is left of the " + id.replace('_', ' ') + ".", ruined, Optional.of(burnedConnections)));
+        return new LocationData(id, "Location " + id, List.of("generated"), connections, states, "normal");
+    }
+
+    private CharacterData character(String id, String home) {
+        String[] races = {"human", "elf", "dwarf", "halfling"};
+        CharacterAppearanceData appearance = new CharacterAppearanceData(races[random.nextInt(races.length)],
+            random.nextBoolean() ? "male" : "female", "adult", List.of());
+        SpeechData speech = new SpeechData("casual", "plain", List.of(), List.of(), List.of("Hello there."));
+        return new CharacterData(id, "Character " + id, appearance, "Generated", speech, "Generated for scale testing.", home);
+    }
+
+    // Map.of iteration order changes between JVM runs, which would change the written files
+    private static <V> Map<String, V> ordered(String k1, V v1, String k2, V v2) {
+        Map<String, V> map = new LinkedHashMap<>();
+        map.put(k1, v1);
+        map.put(k2, v2);
+        return map;
+    }
+
+    private static String factionId(int f) {
+        return "faction_" + f;
+    }
+
+    private static int factionIndex(QuestData quest) {
+        return Integer.parseInt(quest.factionId().substring("faction_".length()));
+    }
+
+    private static String questFullId(int f, int q) {
+        return factionId(f) + ".q" + q;
+    }
+
+    private static String dialogId(int f, int q) {
+        return factionId(f) + "_q" + q;
+    }
+
+    private static String helpedVar(int f, int q) {
+        return factionId(f) + "_q" + q + "_helped";
+    }
+
+    private static String nodeId(int depth, int index) {
+        return "n" + depth + "_" + index;
+    }
+}
@@ -0,0 +1,258 @@
+package ninja.trek.rpg.sim;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongLinkedOpenHashMap;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import ninja.trek.rpg.Mcrpg;
+import ninja.trek.rpg.data.QuestBranch;
+import ninja.trek.rpg.data.QuestData;
+import ninja.trek.rpg.data.loader.RpgDataLoader;
+import ninja.trek.rpg.data.loader.RpgDataRegistry;
+import ninja.trek.rpg.quest.DefaultQuestEngine;
+import ninja.trek.rpg.quest.QuestClock;
+import ninja.trek.rpg.quest.QuestTimerQueue;
+import ninja.trek.rpg.state.QuestState;
+import ninja.trek.rpg.state.RpgWorldState;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Plays random campaigns through the quest engine on a plain JVM, with quest packs loaded
+ * straight from disk, and reports which quests each campaign reached and how fast they ran.
+ *
+ * <p>Every campaign starts from a fresh world state and keeps accepting an available quest,
+ * picking a branch for an active one, or letting an active one run out of time so it
+ * auto-resolves, until nothing is left to do. Branch item requirements need a player
+ * inventory and are not checked.
+ *
+ * <p>{@code --generate 20x50} swaps the shipped pack for one from {@link ContentGenerator}
+ * with 20 factions of 50 quests, written to a temporary directory that is deleted afterwards
+ * and loaded like any other.
+ *
+ * <pre>./gradlew simulateQuests --args="--campaigns 10000 --seed 42 --strict"</pre>
+ */
+public class QuestSimulator {
+
+    private static final String DEFAULT_DATA = "src/main/resources/data/mc-rpg/rpg";
+
+    private final RpgDataRegistry registry;
+    private final List<QuestData> quests;
+    private final Object2IntOpenHashMap<String> questIndex = new Object2IntOpenHashMap<>();
+    private final Random random;
+    private final int maxSteps;
+
+    // Totals over all campaigns, indexed like quests
+    private final long[] reached;
+    private final long[] accepted;
+    private final long[] completed;
+    private final long[] failed;
+    private final List<Object2LongLinkedOpenHashMap<String>> branches = new ArrayList<>();
+
+    private long steps;
+
+    public QuestSimulator(RpgDataRegistry registry, long seed, int maxSteps) {
+        this.registry = registry;
+        this.quests = List.copyOf(registry.getAllQuests());
+        this.random = new Random(seed);
+        this.maxSteps = maxSteps;
+        this.reached = new long[quests.size()];
+        this.accepted = new long[quests.size()];
+        this.completed = new long[quests.size()];
+        this.failed = new long[quests.size()];
+        for (int i = 0; i < quests.size(); i++) {
+            questIndex.put(quests.get(i).fullId(), i);
+            branches.add(new Object2LongLinkedOpenHashMap<>());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path data = Path.of(DEFAULT_DATA);
+        int campaigns = 10000;
+        long seed = System.nanoTime();
+        int maxSteps = 1000;
+        boolean strict = false;
+        String generate = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--data" -> data = Path.of(args[++i]);
+                case "--campaigns" -> campaigns = Integer.parseInt(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--max-steps" -> maxSteps = Integer.parseInt(args[++i]);
+                case "--strict" -> strict = true;
+                case "--generate" -> generate = args[++i];
+                default -> {
+                    System.err.println("Unknown option " + args[i]);
+                    System.err.println("Options: --data <dir> --campaigns <n> --seed <n> --max-steps <n> --strict --generate <factions>x<quests>");
+                    System.exit(2);
+                }
+            }
+        }
+
+        // Per-quest logging would dominate the run
+        Configurator.setLevel(Mcrpg.MOD_ID, Level.WARN);
+
+        // Item ids in requirements resolve against the vanilla registries
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        Path generated = null;
+        int exitCode;
+        try {
+            if (generate != null) {
+                String[] size = generate.split("x", 2);
+                // Content keeps the generator's own seed, so --seed only changes how campaigns play
+                ContentGenerator.Config config = ContentGenerator.Config.DEFAULT.withSize(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+                data = generated = Files.createTempDirectory("mc-rpg-pack");
+                ContentGenerator.generate(config).write(data);
+            }
+            exitCode = run(data, campaigns, seed, maxSteps, strict);
+        } finally {
+            if (generated != null) {
+                deleteRecursively(generated);
+            }
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    private static int run(Path data, int campaigns, long seed, int maxSteps, boolean strict) throws IOException {
+        long loadStart = System.nanoTime();
+        RpgDataRegistry registry = RpgDataLoader.loadDirectory(data);
+        System.out.printf("Loaded %d quests from %s in %d ms%n",
+            registry.getAllQuests().size(), data, (System.nanoTime() - loadStart) / 1_000_000L);
+        if (registry.getAllQuests().isEmpty()) {
+            System.err.println("No quests found under " + data.toAbsolutePath());
+            return 1;
+        }
+
+        QuestSimulator simulator = new QuestSimulator(registry, seed, maxSteps);
+        long start = System.nanoTime();
+        for (int i = 0; i < campaigns; i++) {
+            simulator.runCampaign();
+        }
+        long nanos = System.nanoTime() - start;
+
+        int problems = simulator.report(campaigns, seed, nanos);
+        return strict && problems > 0 ? 1 : 0;
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    public void runCampaign() {
+        RpgWorldState state = new RpgWorldState();
+        SimulatedClock clock = new SimulatedClock();
+        QuestTimerQueue timers = new QuestTimerQueue();
+        DefaultQuestEngine engine = new DefaultQuestEngine(state, clock, timers, random, () -> {});
+        engine.initialize();
+
+        boolean[] acceptedHere = new boolean[quests.size()];
+        List<Integer> active = new ArrayList<>();
+        for (int step = 0; step < maxSteps; step++) {
+            List<QuestData> available = engine.getAvailableQuests();
+            active.clear();
+            for (int i = 0; i < quests.size(); i++) {
+                if (state.getQuestState(quests.get(i).fullId()) == QuestState.ACTIVE) active.add(i);
+            }
+            if (available.isEmpty() && active.isEmpty()) break;
+            steps++;
+
+            if (!available.isEmpty() && (active.isEmpty() || random.nextBoolean())) {
+                QuestData quest = available.get(random.nextInt(available.size()));
+                if (engine.acceptQuest(quest.fullId())) {
+                    int index = questIndex.getInt(quest.fullId());
+                    accepted[index]++;
+                    acceptedHere[index] = true;
+                }
+                continue;
+            }
+
+            QuestData quest = quests.get(active.get(random.nextInt(active.size())));
+            if (!quest.branches().isEmpty() && random.nextBoolean()) {
+                // The player picks a branch
+                QuestBranch branch = quest.branches().get(random.nextInt(quest.branches().size()));
+                engine.completeQuest(quest.fullId(), branch.id());
+            } else {
+                // The player walks away and the quest auto-resolves
+                Long deadline = timers.getDeadline(quest.fullId());
+                if (deadline == null) {
+                    engine.failQuest(quest.fullId());
+                } else {
+                    clock.advanceTo(deadline);
+                    engine.resolveExpired();
+                }
+            }
+        }
+
+        for (int i = 0; i < quests.size(); i++) {
+            QuestState questState = state.getQuestState(quests.get(i).fullId());
+            if (acceptedHere[i] || questState != QuestState.BLOCKED) reached[i]++;
+            if (questState == QuestState.COMPLETED) {
+                completed[i]++;
+                String branch = state.getCompletedBranch(quests.get(i).fullId());
+                branches.get(i).addTo(branch != null ? branch : "?", 1);
+            } else if (questState == QuestState.FAILED) {
+                failed[i]++;
+            }
+        }
+    }
+
+    /**
+     * Prints throughput and per-quest reachability. Returns the number of problems found:
+     * content compile errors plus quests no campaign reached.
+     */
+    public int report(int campaigns, long seed, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        System.out.printf("Simulated %d campaigns (seed %d) in %.0f ms: %.0f campaigns/s, %.0f steps/s%n",
+            campaigns, seed, seconds * 1000, campaigns / seconds, steps / seconds);
+
+        System.out.printf("%-40s %8s %9s %10s %7s  %s%n", "quest", "reached", "accepted", "completed", "failed", "branches");
+        List<String> unreachable = new ArrayList<>();
+        for (int i = 0; i < quests.size(); i++) {
+            String fullId = quests.get(i).fullId();
+            if (reached[i] == 0) unreachable.add(fullId);
+
+            System.out.printf("%-40s %7.1f%% %9d %10d %7d  %s%n",
+                fullId, 100.0 * reached[i] / Math.max(campaigns, 1), accepted[i], completed[i], failed[i], branches.get(i));
+        }
+
+        List<String> errors = registry.getCompileErrors();
+        for (String error : errors) {
+            System.out.println("Compile error: " + error);
+        }
+        if (!unreachable.isEmpty()) {
+            System.out.println("Unreachable quests (" + unreachable.size() + "): " + String.join(", ", unreachable));
+        }
+        return errors.size() + unreachable.size();
+    }
+
+    private static class SimulatedClock implements QuestClock {
+        private long tick;
+
+        @Override
+        public long now() {
+            return tick;
+        }
+
+        void advanceTo(long target) {
+            tick = Math.max(tick, target);
+        }
+    }
+}
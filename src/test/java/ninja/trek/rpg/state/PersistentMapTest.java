@@ -0,0 +1,193 @@
+package ninja.trek.rpg.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentMapTest {
+
+    // Equal only with the same name, so keys can share any number of hash bits
+    private record Key(int hash, String name) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    void withAndWithoutOnKeysSharingTheFullHash() {
+        List<Key> keys = List.of(new Key(7, "a"), new Key(7, "b"), new Key(7, "c"), new Key(7, "d"));
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < keys.size(); i++) {
+            map = map.with(keys.get(i), i);
+        }
+        assertEquals(4, map.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, map.get(keys.get(i)));
+        }
+        assertNull(map.get(new Key(7, "e")));
+
+        map = map.with(keys.get(1), 10);
+        assertEquals(4, map.size());
+        assertEquals(10, map.get(keys.get(1)));
+
+        map = map.without(keys.get(0));
+        assertEquals(3, map.size());
+        assertFalse(map.containsKey(keys.get(0)));
+        assertEquals(Map.of(keys.get(1), 10, keys.get(2), 2, keys.get(3), 3), map);
+
+        // Down to one key the collision node collapses into a leaf
+        map = map.without(keys.get(1)).without(keys.get(2));
+        assertEquals(Map.of(keys.get(3), 3), map);
+        map = map.without(keys.get(3));
+        assertTrue(map.isEmpty());
+        assertSame(PersistentMap.empty(), map);
+    }
+
+    @Test
+    void withAndWithoutOnKeysSharingHashPrefixes() {
+        // Same low 5 bits, same low 30 bits, and a full collision with the first key
+        Key a = new Key(0x00000001, "a");
+        Key b = new Key(0x00000021, "b");
+        Key c = new Key(0x40000001, "c");
+        Key d = new Key(0x00000001, "d");
+        Map<Key, String> expected = Map.of(a, "A", b, "B", c, "C", d, "D");
+
+        PersistentMap<Key, String> map = PersistentMap.copyOf(expected);
+        assertEquals(expected, map);
+        assertEquals(4, map.size());
+
+        for (Key removed : expected.keySet()) {
+            Map<Key, String> rest = new HashMap<>(expected);
+            rest.remove(removed);
+            PersistentMap<Key, String> without = map.without(removed);
+            assertEquals(rest, without);
+            assertEquals(3, without.size());
+            for (Key kept : rest.keySet()) {
+                assertEquals(rest.get(kept), without.get(kept));
+            }
+            // The original is untouched
+            assertEquals(expected, map);
+        }
+    }
+
+    @Test
+    void unchangedUpdatesReturnTheSameMap() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().with("a", 1).with("b", 2);
+        assertSame(map, map.with("a", 1));
+        assertSame(map, map.without("missing"));
+        assertSame(map, map.without(null));
+        assertThrows(NullPointerException.class, () -> map.with(null, 1));
+        assertThrows(NullPointerException.class, () -> map.with("c", null));
+    }
+
+    @Test
+    void diffReportsInsertsUpdatesAndRemovals() {
+        PersistentMap<String, Integer> before = PersistentMap.empty();
+        for (int i = 0; i < 200; i++) {
+            before = before.with("k" + i, i);
+        }
+        PersistentMap<String, Integer> after = before.with("k1", 100).with("new", 5).without("k2").without("k3");
+
+        Map<String, Integer> changes = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        after.diff(before, (key, value) -> {
+            if (value == null) {
+                removed.add(key);
+            } else {
+                changes.put(key, value);
+            }
+        });
+        assertEquals(Map.of("k1", 100, "new", 5), changes);
+        assertEquals(Set.of("k2", "k3"), removed);
+
+        List<String> none = new ArrayList<>();
+        after.diff(after, (key, value) -> none.add(key));
+        // Putting a key back reshapes the trie but leaves nothing to report
+        before.with("tmp", 1).without("tmp").diff(before, (key, value) -> none.add(key));
+        assertTrue(none.isEmpty(), none::toString);
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        Map<Key, Integer> reference = new HashMap<>();
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+
+        for (int step = 0; step < 20000; step++) {
+            // 64 distinct hashes spread over the top and bottom bits, so keys collide at every depth
+            int h = random.nextInt(64);
+            Key key = new Key((h & 3) << 30 | (h >> 2), "k" + random.nextInt(8));
+
+            Integer before = reference.get(key);
+            PersistentMap<Key, Integer> previous = map;
+            if (random.nextInt(3) == 0) {
+                reference.remove(key);
+                map = map.without(key);
+            } else {
+                int value = random.nextInt(4);
+                reference.put(key, value);
+                map = map.with(key, value);
+            }
+            Integer after = reference.get(key);
+
+            assertEquals(reference.size(), map.size());
+            assertEquals(after, map.get(key));
+
+            Map<Key, Integer> reported = new HashMap<>();
+            map.diff(previous, (k, v) -> assertNull(reported.put(k, v == null ? -1 : v), "reported twice"));
+            Map<Key, Integer> expected = new HashMap<>();
+            if (!Objects.equals(before, after)) {
+                expected.put(key, after == null ? -1 : after);
+            }
+            assertEquals(expected, reported);
+
+            if (step % 1000 == 0) {
+                assertEquals(reference, map);
+                assertEquals(map, PersistentMap.copyOf(reference));
+            }
+        }
+        assertEquals(reference, map);
+    }
+
+    @Test
+    void iterationVisitsEveryEntryOnce() {
+        PersistentMap<Key, Integer> map = PersistentMap.empty();
+        for (int i = 0; i < 500; i++) {
+            map = map.with(new Key(i % 37, "k" + i), i);
+        }
+        assertEquals(500, map.size());
+        assertEquals(500, map.entrySet().size());
+
+        List<Key> iterated = new ArrayList<>();
+        for (Map.Entry<Key, Integer> entry : map.entrySet()) {
+            assertEquals(map.get(entry.getKey()), entry.getValue());
+            iterated.add(entry.getKey());
+        }
+        List<Key> visited = new ArrayList<>();
+        map.forEach((key, value) -> visited.add(key));
+
+        assertEquals(500, new HashSet<>(iterated).size());
+        // Both walk the trie in the same order
+        assertEquals(visited, iterated);
+
+        Iterator<Map.Entry<Key, Integer>> it = map.entrySet().iterator();
+        for (int i = 0; i < 500; i++) {
+            it.next();
+        }
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+        assertFalse(PersistentMap.empty().entrySet().iterator().hasNext());
+    }
+}
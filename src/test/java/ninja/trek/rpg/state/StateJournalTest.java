@@ -0,0 +1,198 @@
+package ninja.trek.rpg.state;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.Bootstrap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // Counted on the writer thread, where a failed assertion would go unnoticed
+    private final AtomicInteger writeFailures = new AtomicInteger();
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    @AfterEach
+    void noWriteFailures() {
+        assertEquals(0, writeFailures.get());
+    }
+
+    @Test
+    void replaysEveryRecordType() {
+        RpgWorldState state = open(new RpgWorldState());
+        state.setQuestState("f.q1", QuestState.ACTIVE);
+        state.setCompletedBranch("f.q1", "help");
+        state.setQuestTimer("f.q1", 1234);
+        state.setQuestTimer("f.q2", 5);
+        state.removeQuestTimer("f.q2");
+        state.setFactionStat("f", "reputation", 7);
+        state.setGlobalVar("v", true);
+        state.setLocationState("town", "burned");
+        state.setCharacterLocation("npc", "town");
+        state.setCharacterLocation("ghost", "town");
+        state.setCharacterLocation("ghost", null);
+        state.addCharacterExtra("npc", new CharacterExtra("a", "s1"));
+        state.addCharacterExtra("npc", new CharacterExtra("b", "s2"));
+        state.removeCharacterExtrasBySource("npc", "s1");
+        state.closeJournal();
+
+        RpgWorldState replayed = open(new RpgWorldState());
+        assertEquals(QuestState.ACTIVE, replayed.getQuestState("f.q1"));
+        assertEquals("help", replayed.getCompletedBranch("f.q1"));
+        assertEquals(1234L, replayed.getQuestTimer("f.q1"));
+        assertNull(replayed.getQuestTimer("f.q2"));
+        assertEquals(7, replayed.getFactionStat("f", "reputation"));
+        assertTrue(replayed.getGlobalVar("v"));
+        assertEquals("burned", replayed.getLocationState("town"));
+        assertEquals("town", replayed.getCharacterLocation("npc"));
+        assertNull(replayed.getCharacterLocation("ghost"));
+        assertEquals(List.of(new CharacterExtra("b", "s2")), replayed.getCharacterExtras("npc"));
+        replayed.closeJournal();
+    }
+
+    @Test
+    void nullValuesAreJournaled() {
+        RpgWorldState state = open(new RpgWorldState());
+        state.setCompletedBranch("f.q1", null);
+        state.setLocationState("town", null);
+        state.addCharacterExtra("npc", new CharacterExtra(null, null));
+        state.setGlobalVar("after", true);
+        state.closeJournal();
+
+        RpgWorldState replayed = open(new RpgWorldState());
+        assertNull(replayed.getCompletedBranch("f.q1"));
+        assertNull(replayed.getLocationState("town"));
+        assertEquals(List.of(new CharacterExtra(null, null)), replayed.getCharacterExtras("npc"));
+        assertTrue(replayed.getGlobalVar("after"));
+        replayed.closeJournal();
+    }
+
+    @Test
+    void truncatedLastFrameIsDropped() throws IOException {
+        RpgWorldState state = open(new RpgWorldState());
+        state.setGlobalVar("a", true);
+        state.setGlobalVar("b", true);
+        state.setGlobalVar("c", true);
+        state.closeJournal();
+
+        Path segment = segment(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        Files.write(segment, Arrays.copyOf(bytes, bytes.length - 3));
+
+        RpgWorldState replayed = open(new RpgWorldState());
+        assertTrue(replayed.getGlobalVar("a"));
+        assertTrue(replayed.getGlobalVar("b"));
+        assertFalse(replayed.getGlobalVar("c"));
+
+        // Appends continue in a new segment and replay after the torn one
+        replayed.setGlobalVar("d", true);
+        replayed.closeJournal();
+        assertTrue(Files.exists(segment(1)));
+
+        RpgWorldState again = open(new RpgWorldState());
+        assertTrue(again.getGlobalVar("b"));
+        assertFalse(again.getGlobalVar("c"));
+        assertTrue(again.getGlobalVar("d"));
+        again.closeJournal();
+    }
+
+    @Test
+    void frameWithBadChecksumIsRejected() throws IOException {
+        RpgWorldState state = open(new RpgWorldState());
+        state.setGlobalVar("a", true);
+        state.setGlobalVar("b", true);
+        state.closeJournal();
+
+        Path segment = segment(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(segment, bytes);
+
+        RpgWorldState replayed = open(new RpgWorldState());
+        assertTrue(replayed.getGlobalVar("a"));
+        assertFalse(replayed.getGlobalVar("b"));
+        replayed.closeJournal();
+    }
+
+    @Test
+    void recordsAlreadyReplayedAreSkipped() throws IOException {
+        RpgWorldState state = open(new RpgWorldState());
+        state.addCharacterExtra("npc", new CharacterExtra("a", "s"));
+        state.addCharacterExtra("npc", new CharacterExtra("b", "s"));
+        state.closeJournal();
+
+        // What a flush retried in a new segment leaves behind
+        Files.copy(segment(0), segment(1));
+
+        RpgWorldState replayed = open(new RpgWorldState());
+        assertEquals(2, replayed.getCharacterExtras("npc").size());
+        replayed.closeJournal();
+    }
+
+    @Test
+    void recordsCoveredBySnapshotAreSkipped() {
+        RpgWorldState state = open(new RpgWorldState());
+        state.addCharacterExtra("npc", new CharacterExtra("before", "s"));
+        CompoundTag saved = WorldStateEncoder.encodeFresh(state.captureForSave(1));
+        state.addCharacterExtra("npc", new CharacterExtra("after", "s"));
+        state.closeJournal();
+
+        RpgWorldState replayed = open(RpgWorldState.load(saved));
+        assertEquals(List.of(new CharacterExtra("before", "s"), new CharacterExtra("after", "s")),
+            replayed.getCharacterExtras("npc"));
+        replayed.closeJournal();
+    }
+
+    @Test
+    void discardThroughDeletesOnlyCoveredSegments() {
+        RpgWorldState state = open(new RpgWorldState());
+        state.setGlobalVar("a", true);
+        WorldStateSnapshot first = state.captureForSave(1);
+        CompoundTag saved = WorldStateEncoder.encodeFresh(first);
+        state.setGlobalVar("b", true);
+        state.captureForSave(2);
+        state.setGlobalVar("c", true);
+
+        state.getJournal().discardThrough(first.journalSeq());
+        state.closeJournal();
+
+        assertFalse(Files.exists(segment(0)));
+        assertTrue(Files.exists(segment(1)));
+        assertTrue(Files.exists(segment(2)));
+
+        // The first save plus what is left of the journal is everything
+        RpgWorldState replayed = open(RpgWorldState.load(saved));
+        assertTrue(replayed.getGlobalVar("a"));
+        assertTrue(replayed.getGlobalVar("b"));
+        assertTrue(replayed.getGlobalVar("c"));
+        replayed.closeJournal();
+    }
+
+    private RpgWorldState open(RpgWorldState state) {
+        state.attachJournal(StateJournal.open(dir, state, writeFailures::incrementAndGet));
+        return state;
+    }
+
+    private Path segment(int index) {
+        return dir.resolve(String.format("%08d.wal", index));
+    }
+}